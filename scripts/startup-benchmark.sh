@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Time to first request of the default image vs. the fast-startup image (Spring AOT + CDS + lazy model clients).
+#
+#   docker compose up -d postgres
+#   docker build -t expense-ai .
+#   docker build -f Dockerfile.fast-startup -t expense-ai:fast .
+#   scripts/startup-benchmark.sh                 # RUNS=10 IMAGES="expense-ai expense-ai:fast" to override
+#
+# Each run starts a fresh container on the compose network and measures, from `docker run`, the time until
+# GET /expenses answers 200 (first request) and until /actuator/health/readiness is UP. Model warm-up is
+# off by default (WARMUP_MODELS=true to include it), so readiness measures the JVM and Spring only.
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+IMAGES=${IMAGES:-"expense-ai expense-ai:fast"}
+NETWORK=${NETWORK:-"$(basename "$(cd "$(dirname "$0")/.." && pwd)" | tr '[:upper:]' '[:lower:]')_default"}
+PORT=${PORT:-18080}
+WARMUP_MODELS=${WARMUP_MODELS:-false}
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+wait_for() {
+  local url=$1 deadline=$(( $(now_ms) + 180000 ))
+  until curl -fs -o /dev/null "$url"; do
+    if (( $(now_ms) > deadline )); then echo "timed out waiting for $url" >&2; return 1; fi
+    sleep 0.05
+  done
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+printf '%-24s %6s %18s %12s\n' image run first_request_ms ready_ms
+for image in $IMAGES; do
+  first_all=() ready_all=()
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    container=$(docker run -d --rm --network "$NETWORK" -p "$PORT:8080" \
+      -e SPRING_DATASOURCE_URL=jdbc:postgresql://postgres:5432/expenseai \
+      -e SPRING_DATASOURCE_USERNAME=expenseai -e SPRING_DATASOURCE_PASSWORD=expenseai \
+      -e SPRING_AI_OLLAMA_BASE_URL=http://host.docker.internal:11434 \
+      -e EXPENSEAI_WARMUP_MODELS="$WARMUP_MODELS" \
+      -e OTEL_TRACES_EXPORTER=none -e OTEL_METRICS_EXPORTER=none -e OTEL_LOGS_EXPORTER=none \
+      "$image")
+    wait_for "http://localhost:$PORT/expenses?limit=1"
+    first=$(( $(now_ms) - start ))
+    wait_for "http://localhost:$PORT/actuator/health/readiness"
+    ready=$(( $(now_ms) - start ))
+    docker stop "$container" > /dev/null
+    printf '%-24s %6d %18d %12d\n' "$image" "$run" "$first" "$ready"
+    first_all+=("$first") ready_all+=("$ready")
+  done
+  printf '%-24s %6s %18d %12d\n' "$image" median \
+    "$(printf '%s\n' "${first_all[@]}" | median)" "$(printf '%s\n' "${ready_all[@]}" | median)"
+done
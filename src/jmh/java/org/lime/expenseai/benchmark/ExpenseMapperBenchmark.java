@@ -0,0 +1,55 @@
+package org.lime.expenseai.benchmark;
+
+import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.mapper.ExpenseMapper;
+import org.lime.expenseai.model.ExpenseDto;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping of a page of expenses through the generated MapStruct mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpenseMapperBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    private final ExpenseMapper mapper = Mappers.getMapper(ExpenseMapper.class);
+    private List<Expense> entities;
+    private List<ExpenseDto> dtos;
+
+    @Setup
+    public void setUp() {
+        dtos = SyntheticExpenses.dtos(size, 3);
+        entities = dtos.stream().map(mapper::toEntity).toList();
+    }
+
+    @Benchmark
+    public List<ExpenseDto> toDto() {
+        return entities.stream().map(mapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<Expense> toEntity() {
+        return dtos.stream().map(mapper::toEntity).toList();
+    }
+}
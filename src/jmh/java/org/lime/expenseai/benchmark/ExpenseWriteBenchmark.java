@@ -0,0 +1,111 @@
+package org.lime.expenseai.benchmark;
+
+import org.lime.expenseai.ExpenseAiApplication;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.service.ExpenseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addExpense throughput with {@code writers} concurrent callers, with and without write batching (group
+ * commit), against an embedded H2 database. Each invocation inserts {@link #INSERTS} rows split evenly over
+ * the writers, each on its own virtual thread, so the score is inserts per second.
+ * The application context is started once per parameter combination; Ollama is never called, as every
+ * row has a known category.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseWriteBenchmark {
+
+    private static final int INSERTS = 2048;
+
+    @Param({"1", "16", "256"})
+    int writers;
+
+    @Param({"false", "true"})
+    boolean batching;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private List<ExpenseDto> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ExpenseAiApplication.class)
+                .web(WebApplicationType.NONE)
+                // arguments, as default properties would lose to application.yml
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:jmh-writes;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--expenseai.warmup.models=false",
+                        "--expenseai.category-model.enabled=false",
+                        "--expenseai.write-batching.enabled=" + batching);
+        expenseService = context.getBean(ExpenseService.class);
+        // ids are assigned by the sequence, the ones in the synthetic rows are dropped
+        rows = SyntheticExpenses.dtos(INSERTS, 17).stream()
+                .map(dto -> new ExpenseDto(null, dto.date(), dto.category(), dto.amount(), dto.description()))
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERTS)
+    public long addExpense() throws Exception {
+        int perWriter = INSERTS / writers;
+        List<Future<Long>> results = new ArrayList<>(writers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < writers; w++) {
+                List<ExpenseDto> own = rows.subList(w * perWriter, (w + 1) * perWriter);
+                results.add(executor.submit(() -> {
+                    long lastId = 0;
+                    for (ExpenseDto row : own) {
+                        lastId = expenseService.addExpense(row).id();
+                    }
+                    return lastId;
+                }));
+            }
+            long sum = 0;
+            for (Future<Long> result : results) {
+                sum += result.get();
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.lime.expenseai.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.MonthlySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JSON serialization of the response bodies of GET /expenses and the monthly summary, with the same
+ * ObjectMapper configuration Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    private ObjectWriter listWriter;
+    private ObjectWriter summaryWriter;
+    private List<ExpenseDto> expenses;
+    private MonthlySummary summary;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        expenses = SyntheticExpenses.dtos(size, 5);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ExpenseDto.class));
+        summaryWriter = objectMapper.writerFor(MonthlySummary.class);
+
+        Map<String, Double> byCategory = expenses.stream()
+                .collect(Collectors.groupingBy(ExpenseDto::category, TreeMap::new, Collectors.summingDouble(ExpenseDto::amount)));
+        double total = byCategory.values().stream().mapToDouble(Double::doubleValue).sum();
+        List<ExpenseDto> top = expenses.stream()
+                .sorted(Comparator.comparingDouble(ExpenseDto::amount).reversed())
+                .limit(3)
+                .toList();
+        summary = new MonthlySummary(SyntheticExpenses.MONTH, total, byCategory,
+                total / SyntheticExpenses.MONTH.lengthOfMonth(), 12.5, top);
+    }
+
+    @Benchmark
+    public byte[] expenseList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] monthlySummary() throws JsonProcessingException {
+        return summaryWriter.writeValueAsBytes(summary);
+    }
+}
@@ -0,0 +1,121 @@
+package org.lime.expenseai.benchmark;
+
+import org.lime.expenseai.ExpenseAiApplication;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.MonthlySummary;
+import org.lime.expenseai.model.MonthlyTotalsResult;
+import org.lime.expenseai.service.ColumnarExpenseStore;
+import org.lime.expenseai.service.ExpenseService;
+import org.lime.expenseai.service.MonthlyRollupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * buildMonthlySummary and getMonthlyTotals against an embedded H2 database holding one synthetic month
+ * of {@code rows} expenses (plus a previous month of rows/10), for both summary sources and for the
+ * columnar store.
+ * The application context is started once per parameter combination; Ollama is never called.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonthlySummaryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    @Param({"rollup", "query", "columnar"})
+    String source;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ExpenseAiApplication.class)
+                .web(WebApplicationType.NONE)
+                // arguments, as default properties would lose to application.yml
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--expenseai.warmup.models=false",
+                        "--expenseai.columnar-store.enabled=" + "columnar".equals(source),
+                        "--expenseai.summary.source=" + ("columnar".equals(source) ? "rollup" : source));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from expense");
+        insert(jdbcTemplate, -1, rows / 10, 7);
+        insert(jdbcTemplate, 0, rows, 13);
+        context.getBean(MonthlyRollupService.class).rebuild();
+        context.getBean(ColumnarExpenseStore.class).load();
+        expenseService = context.getBean(ExpenseService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MonthlySummary buildMonthlySummary() {
+        return expenseService.buildMonthlySummary(SyntheticExpenses.MONTH);
+    }
+
+    @Benchmark
+    public MonthlyTotalsResult getMonthlyTotals() {
+        return expenseService.getMonthlyTotals(SyntheticExpenses.MONTH);
+    }
+
+    @Benchmark
+    public List<ExpenseDto> getByDate() {
+        return expenseService.getByDate(SyntheticExpenses.MONTH.atDay(15));
+    }
+
+    // SyntheticExpenses spreads rows over MONTH; monthOffset shifts them to a neighbouring month
+    private static void insert(JdbcTemplate jdbcTemplate, int monthOffset, int count, long seed) {
+        long nextId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from expense", Long.class);
+        int batch = 10_000;
+        for (int from = 0; from < count; from += batch) {
+            List<Object[]> args = new ArrayList<>(batch);
+            for (ExpenseDto dto : SyntheticExpenses.dtos(Math.min(batch, count - from), seed + from)) {
+                args.add(new Object[]{
+                        nextId++,
+                        Date.valueOf(dto.date().plusMonths(monthOffset)),
+                        dto.category(),
+                        dto.amount(),
+                        dto.description()
+                });
+            }
+            jdbcTemplate.batchUpdate("insert into expense (id, date, category, amount, description) values (?, ?, ?, ?, ?)", args);
+        }
+    }
+}
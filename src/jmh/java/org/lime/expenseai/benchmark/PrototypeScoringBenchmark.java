@@ -0,0 +1,97 @@
+package org.lime.expenseai.benchmark;
+
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.service.PrototypeMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-prototype scoring as done by CategoryClassifier: one query against every category prototype.
+ * {@code naiveCosine} is the per-prototype cosine similarity over separate arrays the classifier used
+ * before PrototypeMatrix, kept as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrototypeScoringBenchmark {
+
+    // nomic-embed-text produces 768 dimensions
+    @Param({"768"})
+    int dimension;
+
+    // CategoryClassifier has 5-6 phrases for each of the 5 categories
+    @Param({"27"})
+    int prototypes;
+
+    private PrototypeMatrix matrix;
+    private List<float[]> rawVectors;
+    private List<Category> labels;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        Category[] categories = Category.values();
+        rawVectors = new ArrayList<>(prototypes);
+        labels = new ArrayList<>(prototypes);
+        for (int i = 0; i < prototypes; i++) {
+            rawVectors.add(randomVector(random));
+            labels.add(categories[i % categories.length]);
+        }
+        matrix = PrototypeMatrix.of(labels, rawVectors);
+        query = randomVector(random);
+    }
+
+    @Benchmark
+    public Category prototypeMatrix() {
+        return matrix.nearest(query);
+    }
+
+    @Benchmark
+    public Category naiveCosine() {
+        Category best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < rawVectors.size(); i++) {
+            float[] vector = rawVectors.get(i);
+            double dot = 0;
+            double normA = 0;
+            double normB = 0;
+            for (int j = 0; j < vector.length; j++) {
+                dot += query[j] * vector[j];
+                normA += query[j] * query[j];
+                normB += vector[j] * vector[j];
+            }
+            double score = dot / (Math.sqrt(normA) * Math.sqrt(normB));
+            if (score > bestScore) {
+                bestScore = score;
+                best = labels.get(i);
+            }
+        }
+        return best;
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,35 @@
+package org.lime.expenseai.benchmark;
+
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.ExpenseDto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic expense rows shared by the benchmarks.
+ */
+final class SyntheticExpenses {
+
+    static final YearMonth MONTH = YearMonth.of(2025, 6);
+
+    private SyntheticExpenses() {
+    }
+
+    static List<ExpenseDto> dtos(int count, long seed) {
+        Category[] categories = Category.values();
+        Random random = new Random(seed);
+        List<ExpenseDto> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate date = MONTH.atDay(1 + random.nextInt(MONTH.lengthOfMonth()));
+            rows.add(new ExpenseDto((long) i + 1, date,
+                    categories[random.nextInt(categories.length)].name(),
+                    Math.round(random.nextDouble() * 20_000) / 100d,
+                    "expense " + i));
+        }
+        return rows;
+    }
+}
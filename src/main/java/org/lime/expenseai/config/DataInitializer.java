@@ -2,23 +2,73 @@ package org.lime.expenseai.config;
 
 import org.lime.expenseai.model.ExpenseDto;
 import org.lime.expenseai.service.ExpenseService;
+import org.lime.expenseai.service.MonthlyRollupService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDate;
+import java.util.logging.Logger;
 
 @Configuration
 public class DataInitializer {
 
+    private static final Logger log = Logger.getLogger(DataInitializer.class.getName());
+
+    // Creates the monthly expense partitions from this month up to expenseai.partitions.months-ahead, so
+    // inserts do not land in the default partition; the migration only covers the months it ran in
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    CommandLineRunner ensureExpensePartitions(JdbcTemplate jdbcTemplate,
+                                              @Value("${expenseai.partitions.months-ahead:12}") int monthsAhead) {
+        return args -> {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if ("PostgreSQL".equals(database)) {
+                LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+                Integer created = jdbcTemplate.queryForObject("select ensure_expense_partitions(?, ?)", Integer.class,
+                        thisMonth, thisMonth.plusMonths(monthsAhead));
+                if (created != null && created > 0) {
+                    log.info("Created " + created + " expense partitions");
+                }
+            }
+        };
+    }
+
     @Bean
     CommandLineRunner seedExpenses(ExpenseService expenseService) {
         return args -> {
-            if (expenseService.getAllExpenses().isEmpty()) {
+            if (!expenseService.hasExpenses()) {
                 expenseService.addExpense(new ExpenseDto(null, LocalDate.of(2025, 6, 2), "FOOD", 30, "Dinner"));
                 expenseService.addExpense(new ExpenseDto(null, LocalDate.of(2025, 6, 8), "SHOPPING", 300, "Buy clothes"));
                 expenseService.addExpense(new ExpenseDto(null, LocalDate.of(2025, 6, 15), "GROCERIES", 88.99, "Supermarket"));
             }
         };
     }
+
+    // Run once with --expenseai.categories.backfill-on-startup=true to classify legacy rows
+    @Bean
+    @ConditionalOnProperty(name = "expenseai.categories.backfill-on-startup", havingValue = "true")
+    CommandLineRunner backfillCategories(ExpenseService expenseService) {
+        return args -> expenseService.normalizeStoredCategories();
+    }
+
+    // Rebuilds the monthly rollups from scratch with --expenseai.rollup.rebuild-on-startup=true,
+    // otherwise only when the rollup table is still empty
+    @Bean
+    CommandLineRunner rebuildRollups(MonthlyRollupService rollupService,
+                                     @Value("${expenseai.rollup.rebuild-on-startup:false}") boolean rebuild) {
+        return args -> {
+            if (rebuild) {
+                rollupService.rebuild();
+            } else {
+                rollupService.rebuildIfMissing();
+            }
+        };
+    }
 }
@@ -0,0 +1,40 @@
+package org.lime.expenseai.config;
+
+import org.lime.expenseai.service.CategoryClassifier;
+import org.lime.expenseai.service.ChatService;
+import org.lime.expenseai.service.InsightService;
+import org.lime.expenseai.tool.ExpenseTools;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+
+/**
+ * With the fast-startup profile, {@code spring.main.lazy-initialization} is on and this filter keeps every
+ * bean eager except the model clients: ChatService, InsightService, CategoryClassifier, ExpenseTools and the
+ * Spring AI beans behind them (Ollama clients, ChatClient.Builder, tool calling). They are created on first
+ * use, or by the startup warm-up once the application is up. Their eager dependents inject them with
+ * {@code @Lazy}, so nothing pulls them in during refresh.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-startup")
+public class FastStartupConfiguration {
+
+    private static final List<Class<?>> MODEL_CLIENTS = List.of(
+            ChatService.class, InsightService.class, CategoryClassifier.class, ExpenseTools.class);
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerExceptModelClients() {
+        return (beanName, beanDefinition, beanType) -> !isModelClient(beanType);
+    }
+
+    private static boolean isModelClient(Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        return MODEL_CLIENTS.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                || beanType.getName().startsWith("org.springframework.ai.");
+    }
+}
@@ -0,0 +1,41 @@
+package org.lime.expenseai.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the reads of the current thread to the primary database, for code that must see its own
+ * (or another replica's) just-committed writes despite replication lag. Without a read replica
+ * configured this has no effect.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Integer> PINNED = ThreadLocal.withInitial(() -> 0);
+
+    private ReadRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> reads) {
+        PINNED.set(PINNED.get() + 1);
+        try {
+            return reads.get();
+        } finally {
+            int depth = PINNED.get() - 1;
+            if (depth == 0) {
+                PINNED.remove();
+            } else {
+                PINNED.set(depth);
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable reads) {
+        onPrimary(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PINNED.get() > 0;
+    }
+}
@@ -0,0 +1,166 @@
+package org.lime.expenseai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.lime.expenseai.observability.LlmInstrumentation;
+import org.lime.expenseai.service.CategoryClassifier;
+import org.lime.expenseai.service.ColumnarExpenseStore;
+import org.lime.expenseai.service.LlmBulkhead;
+import org.lime.expenseai.service.LocalCategoryModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Warms the application up in the background once it has started: trains the local category model, loads
+ * the columnar expense store when it is enabled, builds the category prototypes (from their snapshot when it
+ * matches) and sends one prompt each to the embedding and chat models so Ollama has them loaded. The tasks run in parallel; the {@code warmup}
+ * health indicator, part of the readiness group, stays OUT_OF_SERVICE until all of them finished or
+ * {@code expenseai.warmup.timeout} passed. A failed task is reported but does not keep the application
+ * unready, since CRUD endpoints work without the models.
+ * <p>
+ * Metrics: {@code application.warm.time} (JVM start until warm) and {@code warmup.task{task,outcome}}.
+ */
+@Component("warmup")
+public class StartupWarmup implements HealthIndicator {
+
+    private static final Logger log = Logger.getLogger(StartupWarmup.class.getName());
+
+    private final CategoryClassifier categoryClassifier;
+    private final LocalCategoryModel localCategoryModel;
+    private final ColumnarExpenseStore columnarStore;
+    private final ChatModel chatModel;
+    private final LlmBulkhead bulkhead;
+    private final LlmInstrumentation llm;
+    private final MeterRegistry meterRegistry;
+    private final boolean warmModels;
+    private final Duration timeout;
+
+    private volatile boolean warm;
+    private volatile long warmMillis;
+    private volatile Map<String, Object> report = Map.of();
+
+    public StartupWarmup(@Lazy CategoryClassifier categoryClassifier,
+                         LocalCategoryModel localCategoryModel,
+                         ColumnarExpenseStore columnarStore,
+                         @Lazy ChatModel chatModel,
+                         LlmBulkhead bulkhead,
+                         LlmInstrumentation llm,
+                         MeterRegistry meterRegistry,
+                         @Value("${expenseai.warmup.models:true}") boolean warmModels,
+                         @Value("${expenseai.warmup.timeout:120s}") Duration timeout) {
+        this.categoryClassifier = categoryClassifier;
+        this.localCategoryModel = localCategoryModel;
+        this.columnarStore = columnarStore;
+        this.chatModel = chatModel;
+        this.bulkhead = bulkhead;
+        this.llm = llm;
+        this.meterRegistry = meterRegistry;
+        this.warmModels = warmModels;
+        this.timeout = timeout;
+
+        TimeGauge.builder("application.warm.time", this, TimeUnit.MILLISECONDS, w -> w.warmMillis)
+                .description("Time from JVM start until the startup warm-up finished")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("startup-warmup").start(this::run);
+    }
+
+    @Override
+    public Health health() {
+        return (warm ? Health.up() : Health.outOfService()).withDetails(report).build();
+    }
+
+    private void run() {
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("category-model", localCategoryModel::train);
+        if (columnarStore.isEnabled()) {
+            tasks.put("columnar-store", columnarStore::load);
+        }
+        if (warmModels) {
+            tasks.put("category-prototypes", categoryClassifier::warmUp);
+            tasks.put("chat-model", this::warmChatModel);
+        }
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Map<String, Future<Duration>> running = new LinkedHashMap<>();
+        Map<String, Object> results = new LinkedHashMap<>();
+        tasks.forEach((name, task) -> {
+            results.put(name, "running");
+            running.put(name, executor.submit(() -> timed(name, task)));
+        });
+        report = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+        // stragglers keep running after the timeout; they just no longer hold readiness back
+        executor.shutdown();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        running.forEach((name, future) -> {
+            try {
+                Duration elapsed = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                results.put(name, elapsed.toMillis() + " ms");
+            } catch (TimeoutException e) {
+                results.put(name, "timed out");
+            } catch (ExecutionException e) {
+                results.put(name, "failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.put(name, "interrupted");
+            }
+        });
+
+        warmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        results.put("timeToWarm", Duration.ofMillis(warmMillis).toString());
+        report = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+        warm = true;
+        log.info("Warm-up finished " + warmMillis + " ms after JVM start: " + results);
+    }
+
+    private Duration timed(String name, Runnable task) {
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try {
+            task.run();
+            outcome = "success";
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Warm-up task " + name + " failed", e);
+            throw e;
+        } finally {
+            Timer.builder("warmup.task")
+                    .tag("task", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    // a one-token answer is enough to make Ollama load the model; spring.ai.ollama.chat.options.keep-alive
+    // keeps it loaded between requests afterwards
+    private void warmChatModel() {
+        bulkhead.call(() -> llm.chat("llm.chat.warmup", () -> chatModel.call(new Prompt("Reply with OK."))));
+    }
+}
@@ -1,10 +1,13 @@
 package org.lime.expenseai.controller;
 
+import org.lime.expenseai.service.LlmBusyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
 
@@ -20,6 +23,17 @@ public class ApiExceptionHandler {
                 ));
     }
 
+    // queue full -> 429, waited too long for a permit -> 503; both are safe to retry
+    @ExceptionHandler(LlmBusyException.class)
+    public ResponseEntity<Map<String, String>> handleLlmBusy(LlmBusyException ex) {
+        return ResponseEntity.status(ex.isTimedOut() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of(
+                        "error", "LLM_BUSY",
+                        "message", ex.getMessage()
+                ));
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<Map<String, String>> handleIllegalState(IllegalStateException ex) {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
@@ -29,6 +43,15 @@ public class ApiExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleResponseStatus(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatusCode())
+                .body(Map.of(
+                        "error", ex.getStatusCode().toString(),
+                        "message", ex.getReason() == null ? "Request failed" : ex.getReason()
+                ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneric(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -2,10 +2,14 @@ package org.lime.expenseai.controller;
 
 import org.lime.expenseai.model.ChatRequest;
 import org.lime.expenseai.service.ChatService;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -15,7 +19,7 @@ public class ChatController {
 
     private final ChatService chatService;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(@Lazy ChatService chatService) {
         this.chatService = chatService;
     }
 
@@ -24,4 +28,10 @@ public class ChatController {
         String reply = chatService.chat(request.message());
         return Map.of("reply", reply);
     }
+
+    // Server-sent events: "token" events carry {"text": ...}, followed by one "done" (or "error") event
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, String>>> chatStream(@RequestBody ChatRequest request) {
+        return SseEvents.of(chatService.chatStream(request.message()));
+    }
 }
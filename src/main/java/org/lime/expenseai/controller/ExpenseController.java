@@ -1,23 +1,56 @@
 package org.lime.expenseai.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.ExpensePage;
+import org.lime.expenseai.model.ImportResult;
+import org.lime.expenseai.service.ExpenseExportService;
+import org.lime.expenseai.service.ExpenseImportService;
 import org.lime.expenseai.service.ExpenseService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CREATED;
 
 @RestController
 @RequestMapping("/expenses")
 public class ExpenseController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final ExpenseService expenseService;
 
-    public ExpenseController(ExpenseService expenseService) {
+    private final ExpenseImportService expenseImportService;
+
+    private final ExpenseExportService expenseExportService;
+
+    private final ObjectMapper objectMapper;
+
+    public ExpenseController(ExpenseService expenseService,
+                             ExpenseImportService expenseImportService,
+                             ExpenseExportService expenseExportService,
+                             ObjectMapper objectMapper) {
         this.expenseService = expenseService;
+        this.expenseImportService = expenseImportService;
+        this.expenseExportService = expenseExportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/month/{yearMonth}")
@@ -41,14 +74,77 @@ public class ExpenseController {
         expenseService.addExpense(expenseDto);
     }
 
+    // CSV or NDJSON dump of all expenses or a date range, optionally gzip-compressed, written from a DB cursor
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExpenseExportService.Format exportFormat;
+        try {
+            exportFormat = ExpenseExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "format must be csv or ndjson");
+        }
+        String extension = exportFormat == ExpenseExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(exportFormat == ExpenseExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        String filename = "expenses." + extension + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> expenseExportService.export(exportFormat, from, to, gzip, out));
+    }
+
+    // Bulk import of bank statements; the body is parsed as it arrives and never buffered whole
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportResult importCsv(InputStream body) throws IOException {
+        return expenseImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ImportResult importNdjson(InputStream body) throws IOException {
+        return expenseImportService.importNdjson(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
     @PutMapping("/{id}")
     public ExpenseDto updateExpense(@PathVariable Long id, @RequestBody ExpenseDto expenseDto) {
         return expenseService.updateExpense(id, expenseDto);
     }
 
-    @GetMapping
-    public List<ExpenseDto> getAllExpenses() {
-        return expenseService.getAllExpenses();
+    // All expenses as one JSON array, as before pagination, but written row by row from a database cursor
+    // instead of being loaded into a list first; ?stream=true is accepted for the same response
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamExpenses() {
+        // flushing after every row would send one tiny chunk per expense
+        ObjectWriter writer = objectMapper.writerFor(ExpenseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                expenseService.forEachExpense(dto -> {
+                    try {
+                        writer.writeValue(generator, dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    // One page at a time, newest first, when limit or cursor is given; pass nextCursor back for the next page
+    @GetMapping(params = "limit")
+    public ExpensePage getExpensePage(@RequestParam int limit, @RequestParam(required = false) String cursor) {
+        return expenseService.getPage(cursor, limit);
+    }
+
+    @GetMapping(params = {"cursor", "!limit"})
+    public ExpensePage getExpensePageAfter(@RequestParam String cursor) {
+        return expenseService.getPage(cursor, DEFAULT_PAGE_SIZE);
     }
 
 }
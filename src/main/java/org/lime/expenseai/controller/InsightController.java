@@ -2,13 +2,18 @@ package org.lime.expenseai.controller;
 
 import org.lime.expenseai.model.Insight;
 import org.lime.expenseai.service.InsightService;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.time.YearMonth;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/insight")
@@ -16,7 +21,7 @@ public class InsightController {
 
     private final InsightService insightService;
 
-    public InsightController(InsightService insightService) {
+    public InsightController(@Lazy InsightService insightService) {
         this.insightService = insightService;
     }
 
@@ -26,4 +31,12 @@ public class InsightController {
                               @RequestParam(name = "currency", required = false) String currency) {
         return insightService.analyze(month, lang, currency);
     }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, String>>> getInsightStream(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(name = "lang", required = false) String lang,
+            @RequestParam(name = "currency", required = false) String currency) {
+        return SseEvents.of(insightService.analyzeStream(month, lang, currency));
+    }
 }
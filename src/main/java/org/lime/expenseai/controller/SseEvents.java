@@ -0,0 +1,33 @@
+package org.lime.expenseai.controller;
+
+import org.lime.expenseai.service.LlmBusyException;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Maps a stream of text chunks to server-sent events. Chunks are wrapped in JSON so leading
+ * whitespace and newlines inside tokens survive the SSE framing.
+ */
+final class SseEvents {
+
+    private SseEvents() {
+    }
+
+    static Flux<ServerSentEvent<Map<String, String>>> of(Flux<String> chunks) {
+        return chunks
+                .map(text -> ServerSentEvent.builder(Map.of("text", text)).event("token").build())
+                .concatWith(Flux.just(ServerSentEvent.builder(Map.<String, String>of()).event("done").build()))
+                .onErrorResume(e -> Flux.just(ServerSentEvent.builder(errorBody(e))
+                        .event("error")
+                        .build()));
+    }
+
+    private static Map<String, String> errorBody(Throwable e) {
+        if (e instanceof LlmBusyException) {
+            return Map.of("error", "LLM_BUSY", "message", e.getMessage());
+        }
+        return Map.of("error", "LLM_STREAM_FAILED", "message", "The model stream failed, please try again later");
+    }
+}
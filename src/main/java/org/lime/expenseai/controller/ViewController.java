@@ -3,7 +3,6 @@ package org.lime.expenseai.controller;
 import org.lime.expenseai.model.ExpenseDto;
 import org.lime.expenseai.service.ExpenseService;
 import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -19,9 +18,9 @@ public class ViewController {
         this.expenseService = expenseService;
     }
 
+    // Expenses are fetched page by page from /expenses by the page itself
     @GetMapping("/")
-    public String home(Model model) {
-        model.addAttribute("expenses", expenseService.getAllExpenses());
+    public String home() {
         return "index";
     }
 
@@ -0,0 +1,26 @@
+package org.lime.expenseai.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class EmbeddingCacheEntry {
+    // SHA-256 of model name + normalized text, so long descriptions never hit key length limits
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+    private String model;
+    @Column(length = 2048)
+    private String text;
+    // bytea on PostgreSQL; without a length H2 creates varbinary(255), too small for a 768-dimension vector
+    @Column(nullable = false, length = 65536)
+    private byte[] vector;
+    private Instant createdAt;
+}
@@ -1,10 +1,15 @@
 package org.lime.expenseai.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.*;
+import org.lime.expenseai.model.CategorySource;
 
 import java.time.LocalDate;
 
@@ -13,13 +18,21 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Entity
 public class Expense {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+    @SequenceGenerator(name = "expense_seq", sequenceName = "expense_seq", allocationSize = 50)
     private Long id;
+    // partition key of the month-partitioned table, part of its primary key (id, date)
+    @Column(nullable = false)
     private LocalDate date;
     private String category;
     private double amount;
     private String description;
+    // null for rows written before the source was recorded
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CategorySource categorySource;
 
     public void setId(Long id) {
         this.id = id;
@@ -0,0 +1,33 @@
+package org.lime.expenseai.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.*;
+
+/**
+ * Running aggregate of one category in one month, maintained by ExpenseService writes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"rollup_month", "category"}))
+public class MonthlyCategoryRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    // yyyy-MM
+    @Column(name = "rollup_month", length = 7, nullable = false)
+    private String month;
+    @Column(nullable = false)
+    private String category;
+    private double total;
+    @Column(name = "expense_count")
+    private long count;
+    private double maxAmount;
+}
@@ -3,9 +3,11 @@ package org.lime.expenseai.mapper;
 import org.lime.expenseai.entity.Expense;
 import org.lime.expenseai.model.ExpenseDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ExpenseMapper {
     ExpenseDto toDto(Expense expense);
+    @Mapping(target = "categorySource", ignore = true)
     Expense toEntity(ExpenseDto expenseDto);
 }
@@ -0,0 +1,7 @@
+package org.lime.expenseai.model;
+
+// Who picked the category of an expense; only USER rows train the local category model
+public enum CategorySource {
+    USER,
+    CLASSIFIER
+}
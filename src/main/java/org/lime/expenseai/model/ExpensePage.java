@@ -0,0 +1,9 @@
+package org.lime.expenseai.model;
+
+import java.util.List;
+
+public record ExpensePage(
+    List<ExpenseDto> items,
+    String nextCursor
+) {
+}
@@ -0,0 +1,7 @@
+package org.lime.expenseai.model;
+
+public record ImportError(
+    long line,
+    String message
+) {
+}
@@ -0,0 +1,11 @@
+package org.lime.expenseai.model;
+
+import java.util.List;
+
+public record ImportResult(
+    long imported,
+    long failed,
+    List<ImportError> errors,
+    long durationMillis
+) {
+}
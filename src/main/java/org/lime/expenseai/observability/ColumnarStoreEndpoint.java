@@ -0,0 +1,56 @@
+package org.lime.expenseai.observability;
+
+import org.lime.expenseai.service.ColumnarExpenseStore;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/columnarstore}: state of the in-memory columnar expense store.
+ * <ul>
+ *     <li>{@code GET} rows, estimated heap and a consistency check against the expense table</li>
+ *     <li>{@code POST} reloads the store from the database</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "columnarstore")
+public class ColumnarStoreEndpoint {
+
+    private final ColumnarExpenseStore store;
+
+    public ColumnarStoreEndpoint(ColumnarExpenseStore store) {
+        this.store = store;
+    }
+
+    @ReadOperation
+    public Map<String, Object> check() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", store.isEnabled());
+        result.put("ready", store.isReady());
+        if (!store.isReady()) {
+            return result;
+        }
+        int rows = store.size();
+        long bytes = store.estimatedBytes();
+        result.put("rows", rows);
+        result.put("estimatedBytes", bytes);
+        if (rows > 0) {
+            result.put("estimatedBytesPerMillionRows", bytes * 1_000_000 / rows);
+        }
+        List<String> differences = store.differencesFromDatabase();
+        result.put("consistent", differences.isEmpty());
+        result.put("differences", differences);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        store.load();
+        return check();
+    }
+}
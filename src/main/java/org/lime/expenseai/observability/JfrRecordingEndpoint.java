@@ -0,0 +1,143 @@
+package org.lime.expenseai.observability;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * {@code /actuator/jfr}: starts, dumps and stops a JDK Flight Recorder recording that includes
+ * the Expense-AI events (LLM calls, tool calls, repository queries).
+ * <ul>
+ *     <li>{@code POST} starts a recording ({@code settings}: default|profile, {@code maxAge}, e.g. {@code 15m})</li>
+ *     <li>{@code GET} downloads the recording so far as a .jfr file</li>
+ *     <li>{@code DELETE} stops and discards it</li>
+ * </ul>
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final Logger log = Logger.getLogger(JfrRecordingEndpoint.class.getName());
+    private static final String RECORDING_NAME = "expenseai";
+
+    private final String defaultSettings;
+    private final Duration defaultMaxAge;
+    private final boolean recordOnStartup;
+
+    // a lock rather than synchronized: dumping writes a file, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+    private Path lastDump;
+
+    public JfrRecordingEndpoint(@Value("${expenseai.jfr.settings:default}") String defaultSettings,
+                                @Value("${expenseai.jfr.max-age:30m}") Duration defaultMaxAge,
+                                @Value("${expenseai.jfr.record-on-startup:false}") boolean recordOnStartup) {
+        this.defaultSettings = defaultSettings;
+        this.defaultMaxAge = defaultMaxAge;
+        this.recordOnStartup = recordOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (recordOnStartup) {
+            start(null, null);
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump() {
+        lock.lock();
+        try {
+            if (!isRecording()) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            if (lastDump != null) {
+                Files.deleteIfExists(lastDump);
+            }
+            lastDump = Files.createTempFile("expenseai-", ".jfr");
+            lastDump.toFile().deleteOnExit();
+            recording.dump(lastDump);
+            return new WebEndpointResponse<>(new FileSystemResource(lastDump), WebEndpointResponse.STATUS_OK);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @WriteOperation
+    public Map<String, Object> start(@Nullable String settings, @Nullable Duration maxAge) {
+        lock.lock();
+        try {
+            if (isRecording()) {
+                return status();
+            }
+            String name = (settings == null || settings.isBlank()) ? defaultSettings : settings;
+            try {
+                recording = new Recording(Configuration.getConfiguration(name));
+            } catch (IOException | ParseException e) {
+                throw new IllegalArgumentException("Unknown JFR settings: " + name, e);
+            }
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(maxAge == null ? defaultMaxAge : maxAge);
+            recording.start();
+            log.info("JFR recording started (settings " + name + ", max age " + recording.getMaxAge() + ")");
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                recording.close();
+                recording = null;
+                log.info("JFR recording stopped");
+            }
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("recording", isRecording());
+        if (recording != null) {
+            status.put("started", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge());
+        }
+        return status;
+    }
+}
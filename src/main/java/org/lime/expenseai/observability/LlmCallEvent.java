@@ -0,0 +1,33 @@
+package org.lime.expenseai.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One chat, streamed chat or embedding call; the event duration is the model latency.
+ */
+@Name("org.lime.expenseai.LlmCall")
+@Label("LLM Call")
+@Category({"Expense-AI", "LLM"})
+@Description("Chat or embedding model call")
+@StackTrace(false)
+class LlmCallEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Model")
+    String model;
+
+    @Label("Input Tokens")
+    int inputTokens;
+
+    @Label("Output Tokens")
+    int outputTokens;
+
+    @Label("Outcome")
+    String outcome;
+}
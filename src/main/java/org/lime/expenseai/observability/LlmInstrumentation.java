@@ -0,0 +1,272 @@
+package org.lime.expenseai.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spans and Micrometer metrics for every model and tool call, so ChatService, InsightService,
+ * CategoryClassifier and ExpenseTools share one implementation.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code llm.requests} timer (histogram) tagged model, operation, outcome</li>
+ *     <li>{@code llm.tokens} counter tagged model, operation, type=input|output</li>
+ *     <li>{@code llm.requests.active} gauge per operation</li>
+ *     <li>{@code llm.time_to_first_token} timer for streamed answers</li>
+ *     <li>{@code llm.tool.calls} timer tagged tool, outcome</li>
+ * </ul>
+ * Span attributes are unchanged: llm.latency, llm.model, llm.input_tokens, llm.output_tokens.
+ * Each call is also committed as a JFR event ({@link LlmCallEvent}, {@link ToolCallEvent}).
+ */
+@Component
+public class LlmInstrumentation {
+
+    public static final String CHAT = "chat";
+    public static final String CHAT_STREAM = "chat_stream";
+    public static final String EMBEDDING = "embedding";
+
+    private static final Tracer tracer = GlobalOpenTelemetry.getTracer("org.lime.expenseai");
+
+    private final MeterRegistry meterRegistry;
+    private final String chatModelName;
+    private final String embeddingModelName;
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    public LlmInstrumentation(MeterRegistry meterRegistry,
+                              @Value("${spring.ai.ollama.chat.model:unknown}") String chatModelName,
+                              @Value("${spring.ai.ollama.embedding.model:unknown}") String embeddingModelName) {
+        this.meterRegistry = meterRegistry;
+        this.chatModelName = chatModelName;
+        this.embeddingModelName = embeddingModelName;
+        for (String operation : new String[]{CHAT, CHAT_STREAM, EMBEDDING}) {
+            AtomicInteger inFlight = new AtomicInteger();
+            active.put(operation, inFlight);
+            Gauge.builder("llm.requests.active", inFlight, AtomicInteger::get)
+                    .tag("operation", operation)
+                    .description("Model calls in flight")
+                    .register(meterRegistry);
+        }
+    }
+
+    public ChatResponse chat(String spanName, Supplier<ChatResponse> call) {
+        return observe(spanName, CHAT, chatModelName, call,
+                response -> response.getMetadata() == null ? null : response.getMetadata().getModel(),
+                response -> response.getMetadata() == null ? null : response.getMetadata().getUsage());
+    }
+
+    public EmbeddingResponse embedding(String spanName, Supplier<EmbeddingResponse> call) {
+        return observe(spanName, EMBEDDING, embeddingModelName, call,
+                response -> response.getMetadata() == null ? null : response.getMetadata().getModel(),
+                response -> response.getMetadata() == null ? null : response.getMetadata().getUsage());
+    }
+
+    /**
+     * Returns the text chunks of a streamed answer. The span starts on subscription and ends on completion,
+     * error or cancellation; model and token usage come from the last chunk that carries them (Ollama
+     * reports them on the final chunk).
+     */
+    public Flux<String> chatStream(String spanName, Flux<ChatResponse> responses) {
+        return Flux.defer(() -> {
+            Span span = tracer.spanBuilder(spanName).setSpanKind(SpanKind.CLIENT).startSpan();
+            span.setAttribute("llm.operation", CHAT_STREAM);
+            LlmCallEvent event = new LlmCallEvent();
+            event.begin();
+            AtomicInteger inFlight = active.get(CHAT_STREAM);
+            inFlight.incrementAndGet();
+            long startNanos = System.nanoTime();
+            AtomicLong firstTokenNanos = new AtomicLong();
+            AtomicReference<ChatResponse> lastWithMetadata = new AtomicReference<>();
+            return responses
+                    .doOnNext(response -> {
+                        if (response.getMetadata() != null && response.getMetadata().getUsage() != null) {
+                            lastWithMetadata.set(response);
+                        }
+                    })
+                    .map(LlmInstrumentation::chunkText)
+                    .filter(text -> !text.isEmpty())
+                    .doOnNext(text -> firstTokenNanos.compareAndSet(0, System.nanoTime() - startNanos))
+                    .doOnError(e -> {
+                        span.recordException(e);
+                        span.setStatus(StatusCode.ERROR);
+                    })
+                    .doFinally(signal -> {
+                        inFlight.decrementAndGet();
+                        long latencyNanos = System.nanoTime() - startNanos;
+                        ChatResponse last = lastWithMetadata.get();
+                        String model = modelOr(last == null ? null : last.getMetadata().getModel(), chatModelName);
+                        if (last != null) {
+                            recordUsage(span, event, CHAT_STREAM, model, last.getMetadata().getUsage());
+                        }
+                        if (firstTokenNanos.get() > 0) {
+                            span.setAttribute("llm.time_to_first_token", firstTokenNanos.get() / 1_000_000_000d);
+                            Timer.builder("llm.time_to_first_token")
+                                    .tag("model", model)
+                                    .publishPercentileHistogram()
+                                    .register(meterRegistry)
+                                    .record(firstTokenNanos.get(), TimeUnit.NANOSECONDS);
+                        }
+                        String outcome = signal == SignalType.ON_COMPLETE ? "success"
+                                : signal == SignalType.CANCEL ? "cancelled" : "error";
+                        if (signal == SignalType.CANCEL) {
+                            span.setAttribute("llm.cancelled", true);
+                        }
+                        finish(span, event, CHAT_STREAM, model, outcome, latencyNanos);
+                    });
+        });
+    }
+
+    /**
+     * Wraps one {@code @Tool} invocation in a span, the llm.tool.calls timer and a {@link ToolCallEvent};
+     * {@code arguments} are only measured for the event.
+     */
+    public <T> T tool(String name, Supplier<T> call, Object... arguments) {
+        Span span = tracer.spanBuilder("llm.tool").startSpan();
+        span.setAttribute("llm.tool.name", name);
+        ToolCallEvent event = new ToolCallEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try (Scope scope = span.makeCurrent()) {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            Timer.builder("llm.tool.calls")
+                    .tag("tool", name)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.tool = name;
+                event.argumentsSize = sizeOf(arguments);
+                event.outcome = outcome;
+                event.commit();
+            }
+            span.end();
+        }
+    }
+
+    private <R> R observe(String spanName, String operation, String configuredModel, Supplier<R> call,
+                          Function<R, String> modelOf, Function<R, Usage> usageOf) {
+        Span span = tracer.spanBuilder(spanName).setSpanKind(SpanKind.CLIENT).startSpan();
+        span.setAttribute("llm.operation", operation);
+        LlmCallEvent event = new LlmCallEvent();
+        event.begin();
+        AtomicInteger inFlight = active.get(operation);
+        inFlight.incrementAndGet();
+        long startNanos = System.nanoTime();
+        String model = configuredModel;
+        String outcome = "error";
+        try (Scope scope = span.makeCurrent()) {
+            R response = call.get();
+            outcome = "success";
+            if (response != null) {
+                model = modelOr(modelOf.apply(response), configuredModel);
+                recordUsage(span, event, operation, model, usageOf.apply(response));
+            }
+            return response;
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            finish(span, event, operation, model, outcome, System.nanoTime() - startNanos);
+        }
+    }
+
+    private void finish(Span span, LlmCallEvent event, String operation, String model, String outcome, long latencyNanos) {
+        span.setAttribute("llm.latency", latencyNanos / 1_000_000_000d);
+        span.setAttribute("llm.model", model);
+        Timer.builder("llm.requests")
+                .tag("model", model)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.model = model;
+            event.outcome = outcome;
+            event.commit();
+        }
+        span.end();
+    }
+
+    private void recordUsage(Span span, LlmCallEvent event, String operation, String model, Usage usage) {
+        if (usage == null) return;
+        Integer inputTokens = usage.getPromptTokens();
+        Integer outputTokens = usage.getCompletionTokens();
+        if (inputTokens != null) {
+            span.setAttribute("llm.input_tokens", inputTokens);
+            event.inputTokens = inputTokens;
+            tokens(model, operation, "input").increment(inputTokens);
+        }
+        if (outputTokens != null) {
+            span.setAttribute("llm.output_tokens", outputTokens);
+            event.outputTokens = outputTokens;
+            tokens(model, operation, "output").increment(outputTokens);
+        }
+    }
+
+    private Counter tokens(String model, String operation, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("model", model)
+                .tag("operation", operation)
+                .tag("type", type)
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    private static int sizeOf(Object[] arguments) {
+        int size = 0;
+        for (Object argument : arguments) {
+            size += String.valueOf(argument).length();
+        }
+        return size;
+    }
+
+    private static String modelOr(String reported, String configured) {
+        return reported == null || reported.isBlank() ? configured : reported;
+    }
+
+    private static String chunkText(ChatResponse response) {
+        if (response.getResult() == null || response.getResult().getOutput() == null) {
+            return "";
+        }
+        String text = response.getResult().getOutput().getText();
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,31 @@
+package org.lime.expenseai.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One Spring Data repository method call. For methods returning a {@code Stream} the duration covers
+ * opening the stream only and the row count is -1.
+ */
+@Name("org.lime.expenseai.RepositoryQuery")
+@Label("Repository Query")
+@Category({"Expense-AI", "Database"})
+@Description("Spring Data repository method call")
+@StackTrace(false)
+class RepositoryQueryEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Outcome")
+    String outcome;
+}
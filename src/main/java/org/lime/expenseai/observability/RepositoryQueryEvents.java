@@ -0,0 +1,68 @@
+package org.lime.expenseai.observability;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Adds an interceptor to every Spring Data repository that commits a {@link RepositoryQueryEvent} per
+ * method call. The interceptor is registered on the repository factory, so it runs inside the proxy
+ * Spring Data already creates instead of wrapping it in another one.
+ */
+@Component
+class RepositoryQueryEvents implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            new QueryEventInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private record QueryEventInterceptor(String repository) implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryQueryEvent event = new RepositoryQueryEvent();
+            if (!event.isEnabled()) {
+                return invocation.proceed();
+            }
+            event.begin();
+            Object result = null;
+            String outcome = "error";
+            try {
+                result = invocation.proceed();
+                outcome = "success";
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.repository = repository;
+                    event.method = invocation.getMethod().getName();
+                    event.rows = "success".equals(outcome) ? rowsOf(result) : 0;
+                    event.outcome = outcome;
+                    event.commit();
+                }
+            }
+        }
+
+        private static int rowsOf(Object result) {
+            if (result == null) return 0;
+            if (result instanceof Collection<?> rows) return rows.size();
+            if (result instanceof Slice<?> slice) return slice.getNumberOfElements();
+            if (result instanceof Optional<?> optional) return optional.isPresent() ? 1 : 0;
+            if (result instanceof Iterable<?> || result instanceof Stream<?>) return -1;
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.lime.expenseai.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@code @Tool} invocation requested by the chat model.
+ */
+@Name("org.lime.expenseai.ToolCall")
+@Label("Tool Call")
+@Category({"Expense-AI", "LLM"})
+@Description("ExpenseTools method called by the chat model")
+@StackTrace(false)
+class ToolCallEvent extends jdk.jfr.Event {
+
+    @Label("Tool")
+    String tool;
+
+    @Label("Arguments Size")
+    @Description("Length of the arguments' string forms")
+    @DataAmount(DataAmount.BYTES)
+    int argumentsSize;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,28 @@
+package org.lime.expenseai.repository;
+
+import org.lime.expenseai.entity.EmbeddingCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+    List<EmbeddingCacheEntry> findByModelOrderByCreatedAtDesc(String model, Pageable pageable);
+
+    // Keeps the newest rows of the whole table, whichever replica wrote them: deletes everything created before
+    // the row at the given offset from the newest. Rows sharing that row's timestamp are kept
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from embedding_cache_entry
+            where created_at < (select created_at from embedding_cache_entry
+                                order by created_at desc
+                                offset :offset rows fetch next 1 rows only)""", nativeQuery = true)
+    int deleteCreatedBeforeRow(@Param("offset") int offset);
+}
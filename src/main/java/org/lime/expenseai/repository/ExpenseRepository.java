@@ -1,14 +1,152 @@
 package org.lime.expenseai.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.model.CategorySource;
+import org.lime.expenseai.model.ExpenseDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+    // cheap emptiness check: one primary-key index lookup instead of loading or counting the table
+    Optional<Expense> findFirstByOrderByIdAsc();
+
     List<Expense> findByDate(LocalDate date);
     List<Expense> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    List<Expense> findByDateBetweenOrderByAmountDesc(LocalDate startDate, LocalDate endDate, Limit limit);
+
+    // Case-insensitive match on the lower(description) index, newest first
+    @Query("""
+            select e from Expense e
+            where e.date = :date and lower(e.description) = lower(:description)
+            order by e.id desc""")
+    List<Expense> findByDateAndDescriptionIgnoreCase(@Param("date") LocalDate date,
+                                                     @Param("description") String description,
+                                                     Limit limit);
+
+    // Keyset pagination, newest first: (date, id) of the last row of the previous page is the cursor
+    List<Expense> findAllByOrderByDateDescIdDesc(Limit limit);
+
+    @Query("""
+            select e from Expense e
+            where e.date < :date or (e.date = :date and e.id < :id)
+            order by e.date desc, e.id desc""")
+    List<Expense> findPageAfter(@Param("date") LocalDate date, @Param("id") long id, Limit limit);
+
+    // Must be consumed inside a transaction; the fetch size makes the driver use a server-side cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Expense e order by e.date desc, e.id desc")
+    Stream<Expense> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Expense e where e.date between :startDate and :endDate order by e.date, e.id")
+    Stream<Expense> streamByDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Rows for the columnar store, as DTOs so nothing enters the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("""
+            select new org.lime.expenseai.model.ExpenseDto(e.id, e.date, e.category, e.amount, e.description)
+            from Expense e
+            order by e.date, e.id""")
+    Stream<ExpenseDto> streamRows();
+
+    @Query("""
+            select new org.lime.expenseai.model.ExpenseDto(e.id, e.date, e.category, e.amount, e.description)
+            from Expense e
+            where e.date between :startDate and :endDate
+            order by e.date, e.id""")
+    List<ExpenseDto> findRowsBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            select e from Expense e
+            where e.id > :afterId and (e.category is null or e.category not in :settled)
+            order by e.id""")
+    List<Expense> findUnsettledCategoriesAfter(@Param("afterId") long afterId,
+                                               @Param("settled") Collection<String> settled,
+                                               Limit limit);
+
+    @Query("""
+            select new org.lime.expenseai.model.ExpenseDto(e.id, e.date, e.category, e.amount, e.description)
+            from Expense e
+            where e.id in :ids""")
+    List<ExpenseDto> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Training data for the local category model, oldest first: only categories users chose
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select e.id as id, e.description as description, e.category as category
+            from Expense e
+            where e.id > :afterId and e.description is not null and e.category in :categories
+              and e.categorySource = :source
+            order by e.id""")
+    Stream<LabeledDescription> streamLabeledAfter(@Param("afterId") long afterId,
+                                                  @Param("categories") Collection<String> categories,
+                                                  @Param("source") CategorySource source);
+
+    @Query("""
+            select coalesce(e.category, 'OTHER') as category, sum(e.amount) as total
+            from Expense e
+            where e.date between :startDate and :endDate
+            group by coalesce(e.category, 'OTHER')""")
+    List<CategoryTotal> sumByCategoryBetween(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate);
+
+    @Query("select coalesce(sum(e.amount), 0) from Expense e where e.date between :startDate and :endDate")
+    double sumAmountBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("select distinct year(e.date) as year, month(e.date) as month from Expense e where e.date is not null")
+    List<MonthKey> findMonths();
+
+    @Query("""
+            select year(e.date) as year, month(e.date) as month, coalesce(e.category, 'OTHER') as category,
+                   sum(e.amount) as total, count(e) as count, max(e.amount) as maxAmount
+            from Expense e
+            group by year(e.date), month(e.date), coalesce(e.category, 'OTHER')""")
+    List<MonthCategoryAggregate> aggregateByMonthAndCategory();
+
+    interface LabeledDescription {
+        long getId();
+        String getDescription();
+        String getCategory();
+    }
+
+    interface MonthKey {
+        int getYear();
+        int getMonth();
+    }
+
+    interface CategoryTotal {
+        String getCategory();
+        double getTotal();
+    }
+
+    interface MonthCategoryAggregate {
+        int getYear();
+        int getMonth();
+        String getCategory();
+        double getTotal();
+        long getCount();
+        double getMaxAmount();
+    }
 }
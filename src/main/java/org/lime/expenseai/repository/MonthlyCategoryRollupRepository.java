@@ -0,0 +1,12 @@
+package org.lime.expenseai.repository;
+
+import org.lime.expenseai.entity.MonthlyCategoryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MonthlyCategoryRollupRepository extends JpaRepository<MonthlyCategoryRollup, Long> {
+    List<MonthlyCategoryRollup> findByMonth(String month);
+}
@@ -1,120 +1,250 @@
 package org.lime.expenseai.service;
 
-import io.opentelemetry.api.GlobalOpenTelemetry;
-import io.opentelemetry.api.trace.Span;
-import io.opentelemetry.api.trace.SpanKind;
-import io.opentelemetry.api.trace.StatusCode;
-import io.opentelemetry.api.trace.Tracer;
-import io.opentelemetry.context.Scope;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.lime.expenseai.model.Category;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.ai.chat.metadata.Usage;
+import org.lime.expenseai.observability.LlmInstrumentation;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Very small in-memory classifier: embeds known categories and picks nearest.
+ * Very small in-memory classifier: embeds a few labeled prototypes per category and picks the nearest.
+ * Descriptions the {@link LocalCategoryModel} is confident about are answered without embedding.
  */
 @Component
 public class CategoryClassifier {
 
     private static final Logger log = Logger.getLogger(CategoryClassifier.class.getName());
-    private static final Tracer tracer = GlobalOpenTelemetry.getTracer("org.lime.expenseai");
+
+    // Labeled examples per category; the bare category name is always the first prototype
+    private static final Map<Category, List<String>> PROTOTYPES = Map.of(
+            Category.FOOD, List.of("food", "restaurant dinner", "lunch", "coffee", "takeaway meal", "fast food"),
+            Category.GROCERIES, List.of("groceries", "supermarket", "grocery store", "fruit and vegetables", "bakery bread"),
+            Category.ENTERTAINMENT, List.of("entertainment", "cinema movie tickets", "concert", "streaming subscription", "video games"),
+            Category.TRANSPORT, List.of("transport", "uber taxi ride", "train ticket", "bus fare", "fuel at gas station", "parking"),
+            Category.SHOPPING, List.of("shopping", "buy clothes", "shoes", "electronics", "online order")
+    );
 
     private final EmbeddingModel embeddingModel;
+    private final EmbeddingCache embeddingCache;
     private final String embeddingModelName;
-    private final AtomicBoolean initialized = new AtomicBoolean(false);
-
-    private static final List<Category> CATEGORIES = List.of(Category.values());
+    private final Path snapshotDir;
+    private final LlmBulkhead bulkhead;
+    private final LlmInstrumentation llm;
+    private final LocalCategoryModel localModel;
+    // concurrent classify calls for the same normalized description share one embedding request
+    private final SingleFlight<String, String> inFlight;
 
-    private final Map<Category, float[]> categoryVectors = new HashMap<>();
+    // a lock rather than synchronized: initialization blocks on the embedding call, which would pin a virtual thread
+    private final ReentrantLock prototypesLock = new ReentrantLock();
+    private volatile PrototypeMatrix prototypes;
 
     public CategoryClassifier(
             EmbeddingModel embeddingModel,
-            @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}") String embeddingModelName
+            EmbeddingCache embeddingCache,
+            LlmBulkhead bulkhead,
+            LlmInstrumentation llm,
+            LocalCategoryModel localModel,
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}") String embeddingModelName,
+            @Value("${expenseai.category-prototypes.snapshot-dir:data}") String snapshotDir
     ) {
         this.embeddingModel = embeddingModel;
+        this.embeddingCache = embeddingCache;
+        this.bulkhead = bulkhead;
+        this.llm = llm;
+        this.localModel = localModel;
+        this.inFlight = new SingleFlight<>(meterRegistry, "classify");
         this.embeddingModelName = embeddingModelName;
+        this.snapshotDir = snapshotDir == null || snapshotDir.isBlank() ? null : Path.of(snapshotDir);
     }
 
     public String classify(String text) {
         log.info("CategoryClassifier.classify called: " + text);
-        initIfNeeded();
-        EmbeddingResponse response = embedWithSpan("llm.embedding", List.of(text));
-        float[] query = response.getResult().getOutput();
-        return categoryVectors.entrySet().stream()
-                .max((a, b) -> Float.compare(cosineSimilarity(query, a.getValue()), cosineSimilarity(query, b.getValue())))
-                .map(entry -> entry.getKey().name())
-                .orElse("OTHER");
+        String normalized = EmbeddingCache.normalize(text);
+        String local = localModel.classify(normalized);
+        if (local != null) {
+            return local;
+        }
+        PrototypeMatrix matrix = prototypes();
+        String category = inFlight.execute(normalized, () -> {
+            float[] query = embedAll("llm.embedding", List.of(normalized)).get(0);
+            return nameOf(matrix.nearest(query));
+        });
+        localModel.recordFallback(normalized, category);
+        return category;
     }
 
-    private void initIfNeeded() {
-        if (initialized.compareAndSet(false, true)) {
-            EmbeddingResponse resp = embedWithSpan("llm.embedding.categories_init", CATEGORIES.stream().map(Enum::name).toList());
-            for (int i = 0; i < CATEGORIES.size(); i++) {
-                categoryVectors.put(CATEGORIES.get(i), resp.getResults().get(i).getOutput());
+    /**
+     * Classifies many descriptions at once; descriptions the local model is not confident about and
+     * that are missing from the embedding cache are embedded in a single batch request. Results are
+     * in input order.
+     */
+    public List<String> classifyAll(List<String> texts) {
+        log.info("CategoryClassifier.classifyAll called: " + texts.size() + " texts");
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        List<String> normalized = texts.stream().map(EmbeddingCache::normalize).toList();
+        String[] categories = new String[normalized.size()];
+        List<Integer> unresolved = new ArrayList<>();
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = localModel.classify(normalized.get(i));
+            if (categories[i] == null) {
+                unresolved.add(i);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            PrototypeMatrix matrix = prototypes();
+            List<float[]> queries = embedAll("llm.embedding.batch", unresolved.stream().map(normalized::get).toList());
+            for (int j = 0; j < queries.size(); j++) {
+                int i = unresolved.get(j);
+                categories[i] = nameOf(matrix.nearest(queries.get(j)));
+                localModel.recordFallback(normalized.get(i), categories[i]);
             }
         }
+        return List.of(categories);
     }
 
-    private EmbeddingResponse embedWithSpan(String spanName, List<String> inputs) {
-        Span span = tracer.spanBuilder(spanName).setSpanKind(SpanKind.CLIENT).startSpan();
-        try (Scope scope = span.makeCurrent()) {
-            span.setAttribute("llm.operation", "embedding");
-            long startNanos = System.nanoTime();
-            EmbeddingResponse response = embeddingModel.embedForResponse(inputs);
-            long latencyNanos = System.nanoTime() - startNanos;
-            span.setAttribute("llm.latency", latencyNanos / 1_000_000_000d);
-
-            if (response != null && response.getMetadata() != null) {
-                String model = response.getMetadata().getModel();
-                if (model != null && !model.isBlank()) {
-                    span.setAttribute("llm.model", model);
-                } else if (embeddingModelName != null && !embeddingModelName.isBlank()) {
-                    span.setAttribute("llm.model", embeddingModelName);
-                }
-                Usage usage = response.getMetadata().getUsage();
-                if (usage != null) {
-                    Integer inputTokens = usage.getPromptTokens();
-                    Integer outputTokens = usage.getCompletionTokens();
-                    if (inputTokens != null) {
-                        span.setAttribute("llm.input_tokens", inputTokens);
+    private static String nameOf(Category category) {
+        return category == null ? "OTHER" : category.name();
+    }
+
+    /**
+     * Builds the prototype matrix (from the snapshot if one matches) and embeds a probe, so the embedding
+     * model is loaded before the first request. Called by the startup warm-up.
+     */
+    public void warmUp() {
+        prototypes();
+        embedWithSpan("llm.embedding.warmup", List.of("warm up"));
+    }
+
+    private PrototypeMatrix prototypes() {
+        PrototypeMatrix matrix = prototypes;
+        if (matrix == null) {
+            prototypesLock.lock();
+            try {
+                matrix = prototypes;
+                if (matrix == null) {
+                    List<Category> labels = new ArrayList<>();
+                    List<String> texts = new ArrayList<>();
+                    for (Category category : Category.values()) {
+                        for (String example : PROTOTYPES.getOrDefault(category, List.of(category.name()))) {
+                            labels.add(category);
+                            texts.add(EmbeddingCache.normalize(example));
+                        }
                     }
-                    if (outputTokens != null) {
-                        span.setAttribute("llm.output_tokens", outputTokens);
+                    matrix = loadPrototypes(labels, texts);
+                    if (matrix == null) {
+                        matrix = PrototypeMatrix.of(labels, embedAll("llm.embedding.categories_init", texts));
+                        savePrototypes(labels, texts, matrix);
                     }
+                    prototypes = matrix;
+                }
+            } finally {
+                prototypesLock.unlock();
+            }
+        }
+        return matrix;
+    }
+
+    // One snapshot file per embedding model; it also records the prototype phrases, so editing
+    // PROTOTYPES invalidates it
+    private Path prototypesSnapshot() {
+        if (snapshotDir == null) return null;
+        return snapshotDir.resolve("category-prototypes-" + embeddingModelName.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+    }
+
+    private PrototypeMatrix loadPrototypes(List<Category> labels, List<String> texts) {
+        Path file = prototypesSnapshot();
+        if (file == null || !Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!embeddingModelName.equals(in.readUTF()) || in.readInt() != texts.size()) {
+                return null;
+            }
+            for (int i = 0; i < texts.size(); i++) {
+                if (!labels.get(i).name().equals(in.readUTF()) || !texts.get(i).equals(in.readUTF())) {
+                    return null;
                 }
             }
-            if ((response == null || response.getMetadata() == null)
-                    && embeddingModelName != null
-                    && !embeddingModelName.isBlank()) {
-                span.setAttribute("llm.model", embeddingModelName);
+            PrototypeMatrix matrix = PrototypeMatrix.readFrom(in);
+            log.info("Loaded " + matrix.rows() + " category prototypes from " + file);
+            return matrix;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Ignoring unreadable prototype snapshot " + file, e);
+            return null;
+        }
+    }
+
+    private void savePrototypes(List<Category> labels, List<String> texts, PrototypeMatrix matrix) {
+        Path file = prototypesSnapshot();
+        if (file == null) return;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "category-prototypes", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(embeddingModelName);
+                out.writeInt(texts.size());
+                for (int i = 0; i < texts.size(); i++) {
+                    out.writeUTF(labels.get(i).name());
+                    out.writeUTF(texts.get(i));
+                }
+                matrix.writeTo(out);
             }
-            return response;
-        } catch (Exception e) {
-            span.recordException(e);
-            span.setStatus(StatusCode.ERROR);
-            throw e;
-        } finally {
-            span.end();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not write prototype snapshot " + file, e);
         }
     }
 
-    private float cosineSimilarity(float[] a, float[] b) {
-        double dot = 0, na = 0, nb = 0;
-        for (int i = 0; i < a.length; i++) {
-            dot += a[i] * b[i];
-            na += a[i] * a[i];
-            nb += b[i] * b[i];
+    /**
+     * Returns one vector per (already normalized) input, serving repeats from the cache and
+     * embedding all misses in one request.
+     */
+    private List<float[]> embedAll(String spanName, List<String> normalizedTexts) {
+        Map<String, float[]> vectors = new HashMap<>();
+        Set<String> pending = new LinkedHashSet<>();
+        for (String text : normalizedTexts) {
+            if (vectors.containsKey(text) || pending.contains(text)) continue;
+            float[] cached = embeddingCache.get(embeddingModelName, text);
+            if (cached != null) {
+                vectors.put(text, cached);
+            } else {
+                pending.add(text);
+            }
+        }
+        if (!pending.isEmpty()) {
+            List<String> missing = new ArrayList<>(pending);
+            EmbeddingResponse response = embedWithSpan(spanName, missing);
+            for (int i = 0; i < missing.size(); i++) {
+                float[] vector = response.getResults().get(i).getOutput();
+                embeddingCache.put(embeddingModelName, missing.get(i), vector);
+                vectors.put(missing.get(i), vector);
+            }
         }
-        if (na == 0 || nb == 0) return -1;
-        return (float) (dot / (Math.sqrt(na) * Math.sqrt(nb)));
+        return normalizedTexts.stream().map(vectors::get).toList();
+    }
+
+    private EmbeddingResponse embedWithSpan(String spanName, List<String> inputs) {
+        return bulkhead.call(() -> llm.embedding(spanName, () -> embeddingModel.embedForResponse(inputs)));
     }
 }
@@ -0,0 +1,19 @@
+package org.lime.expenseai.service;
+
+/**
+ * Published by ExpenseService inside the writing transaction when a user, rather than the classifier,
+ * chose the category of an expense. For corrections the previous description and category are set;
+ * for new expenses they are null.
+ */
+public record CategoryLabeledEvent(
+    Long expenseId,
+    String previousDescription,
+    String previousCategory,
+    String description,
+    String category
+) {
+
+    public boolean isCorrection() {
+        return previousCategory != null;
+    }
+}
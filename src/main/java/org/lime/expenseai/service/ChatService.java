@@ -1,30 +1,55 @@
 package org.lime.expenseai.service;
 
-import io.opentelemetry.api.GlobalOpenTelemetry;
-import io.opentelemetry.api.trace.Span;
-import io.opentelemetry.api.trace.SpanKind;
-import io.opentelemetry.api.trace.StatusCode;
-import io.opentelemetry.api.trace.Tracer;
-import io.opentelemetry.context.Scope;
-
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.observability.LlmInstrumentation;
 import org.lime.expenseai.tool.ExpenseTools;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 @Service
 public class ChatService {
     private static final Logger log = Logger.getLogger(ChatService.class.getName());
 
-    private static final Tracer tracer = GlobalOpenTelemetry.getTracer("org.lime.expenseai");
-
     private final ChatClient chatClient;
+    private final LlmBulkhead bulkhead;
+    private final LlmInstrumentation llm;
+    private final ExpenseService expenseService;
+    private final boolean quickEntryEnabled;
+    private final Timer fastPathTimer;
+    private final Timer modelPathTimer;
 
-    public ChatService(ChatClient.Builder chatClientBuilder, ExpenseTools tools) {
+    public ChatService(ChatClient.Builder chatClientBuilder,
+                       ExpenseTools tools,
+                       LlmBulkhead bulkhead,
+                       LlmInstrumentation llm,
+                       ExpenseService expenseService,
+                       MeterRegistry meterRegistry,
+                       @Value("${expenseai.chat.quick-entry.enabled:true}") boolean quickEntryEnabled) {
+        this.bulkhead = bulkhead;
+        this.llm = llm;
+        this.expenseService = expenseService;
+        this.quickEntryEnabled = quickEntryEnabled;
+        // the share of requests on path=fast is the LLM bypass rate
+        this.fastPathTimer = Timer.builder("chat.requests")
+                .tag("path", "fast")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.modelPathTimer = Timer.builder("chat.requests")
+                .tag("path", "llm")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
         this.chatClient = chatClientBuilder
                 .defaultSystem("""
                         You are an expense assistant. Always call tools to read or write expense data.
@@ -42,34 +67,26 @@ public class ChatService {
     }
 
     public String chat(String userMessage) {
-        Span llmSpan = tracer.spanBuilder("llm.chat").setSpanKind(SpanKind.CLIENT).startSpan();
-        try (Scope scope = llmSpan.makeCurrent()) {
-            long startNanos = System.nanoTime();
-            ChatResponse response = chatClient.prompt()
+        long startNanos = System.nanoTime();
+        Optional<String> quickReply = tryQuickEntry(userMessage);
+        if (quickReply.isPresent()) {
+            fastPathTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            return quickReply.get();
+        }
+        try {
+            return chatWithModel(userMessage);
+        } finally {
+            modelPathTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String chatWithModel(String userMessage) {
+        try {
+            ChatResponse response = bulkhead.callWithPermit(permit -> llm.chat("llm.chat", () -> chatClient.prompt()
                     .user(userMessage)
+                    .toolContext(new ChatTurn(permit).toolContext())
                     .call()
-                    .chatResponse();
-            long latencyNanos = System.nanoTime() - startNanos;
-            llmSpan.setAttribute("llm.latency", latencyNanos / 1_000_000_000d);
-
-            if (response != null && response.getMetadata() != null) {
-                String model = response.getMetadata().getModel();
-                if (model != null && !model.isBlank()) {
-                    llmSpan.setAttribute("llm.model", model);
-                }
-                Usage usage = response.getMetadata().getUsage();
-                if (usage != null) {
-                    Integer inputTokens = usage.getPromptTokens();
-                    Integer outputTokens = usage.getCompletionTokens();
-                    if (inputTokens != null) {
-                        llmSpan.setAttribute("llm.input_tokens", inputTokens);
-                    }
-                    if (outputTokens != null) {
-                        llmSpan.setAttribute("llm.output_tokens", outputTokens);
-                    }
-                }
-            }
-
+                    .chatResponse()));
             if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
                 throw new IllegalStateException("Chat response is empty");
             }
@@ -78,13 +95,58 @@ public class ChatService {
                 throw new IllegalStateException("Chat response text is empty");
             }
             return text;
+        } catch (LlmBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.log(Level.SEVERE, "Chat call failed", e);
-            llmSpan.recordException(e);
-            llmSpan.setStatus(StatusCode.ERROR);
             throw e;
-        } finally {
-            llmSpan.end();
         }
     }
+
+    /**
+     * Streams the reply as it is generated; tool calls still run before the final answer is produced.
+     */
+    public Flux<String> chatStream(String userMessage) {
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            Optional<String> quickReply = tryQuickEntry(userMessage);
+            if (quickReply.isPresent()) {
+                fastPathTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return Flux.just(quickReply.get());
+            }
+            return streamFromModel(userMessage)
+                    .doFinally(signal -> modelPathTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Flux<String> streamFromModel(String userMessage) {
+        return bulkhead.streamWithPermit(permit -> llm.chatStream("llm.chat.stream", chatClient.prompt()
+                        .user(userMessage)
+                        .toolContext(new ChatTurn(permit).toolContext())
+                        .stream()
+                        .chatResponse()))
+                .doOnError(e -> log.log(Level.SEVERE, "Chat stream failed", e));
+    }
+
+    /**
+     * Records formulaic single-expense messages without a model round-trip; returns empty when
+     * {@link QuickEntryParser} is not confident and the model should handle the message.
+     */
+    private Optional<String> tryQuickEntry(String userMessage) {
+        if (!quickEntryEnabled) {
+            return Optional.empty();
+        }
+        return QuickEntryParser.parse(userMessage, LocalDate.now()).map(entry -> {
+            ExpenseDto saved = expenseService.addExpense(
+                    new ExpenseDto(null, entry.date(), entry.category(), entry.amount(), entry.description()));
+            String amount = String.format(Locale.ROOT, "%.2f", saved.amount());
+            return "Recorded %s: %s%s on %s (category %s, id %d).".formatted(
+                    saved.description(),
+                    amount,
+                    entry.currency() == null ? "" : " " + entry.currency(),
+                    saved.date(),
+                    saved.category(),
+                    saved.id());
+        });
+    }
 }
@@ -0,0 +1,55 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.config.ReadRouting;
+import org.springframework.ai.chat.model.ToolContext;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * State of one chat request, handed to the tools through the Spring AI {@link ToolContext} (tool calls of a
+ * streamed answer run on other threads, so a thread-local would not reach them). Once a tool has written,
+ * the reads of later tool calls in the same turn go to the primary database, so the model sees its own
+ * writes even when a read replica lags behind. Tool calls also share the chat's {@link LlmBulkhead.Permit}, so
+ * the embedding calls they make do not wait for a second permit.
+ */
+public final class ChatTurn {
+
+    public static final String CONTEXT_KEY = "expenseai.chatTurn";
+
+    private final LlmBulkhead.Permit modelPermit;
+    private volatile boolean wrote;
+
+    public ChatTurn(LlmBulkhead.Permit modelPermit) {
+        this.modelPermit = modelPermit;
+    }
+
+    public Map<String, Object> toolContext() {
+        return Map.of(CONTEXT_KEY, this);
+    }
+
+    public static ChatTurn of(ToolContext toolContext) {
+        if (toolContext == null || toolContext.getContext() == null) {
+            return null;
+        }
+        return toolContext.getContext().get(CONTEXT_KEY) instanceof ChatTurn turn ? turn : null;
+    }
+
+    public <T> T write(Supplier<T> write) {
+        try {
+            return modelPermit.share(write);
+        } finally {
+            // also after a failure: part of the write may have committed
+            wrote = true;
+        }
+    }
+
+    public <T> T read(Supplier<T> read) {
+        return wrote ? ReadRouting.onPrimary(() -> modelPermit.share(read)) : modelPermit.share(read);
+    }
+
+    // tool work that only calls the model
+    public <T> T call(Supplier<T> work) {
+        return modelPermit.share(work);
+    }
+}
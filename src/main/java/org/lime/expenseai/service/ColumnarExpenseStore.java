@@ -0,0 +1,275 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lime.expenseai.config.ReadRouting;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory copy of the expense table in {@link ExpenseColumns}, so month and day reads and the
+ * monthly aggregates of {@link ExpenseService} are a binary search and a loop over primitive arrays
+ * instead of a database round trip. Enabled with {@code expenseai.columnar-store.enabled}; loaded by the
+ * startup warm-up and kept in sync once a write has committed: the rows an {@link ExpensesChangedEvent}
+ * names are read by id and upserted (or removed, if they are gone). Only events without ids, such as after
+ * the change bus missed messages, reload every month they name. Until the load finished {@link #isReady()}
+ * is false and reads go to the database.
+ * <p>
+ * The update runs before other listeners (such as {@link MonthDataVersions}), so a cache key built
+ * from a new data version never sees the old rows. Writes that bypass ExpenseService are not seen.
+ * <p>
+ * Metrics: {@code expense.columnar.rows}, {@code expense.columnar.bytes} (estimated heap).
+ */
+@Component
+public class ColumnarExpenseStore {
+
+    private static final Logger log = Logger.getLogger(ColumnarExpenseStore.class.getName());
+
+    private final ExpenseRepository expenseRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ExpenseColumns columns = new ExpenseColumns();
+    private volatile boolean ready;
+
+    // reloads query the database, so they are serialized outside the read-write lock; a lock rather than
+    // synchronized so a waiting virtual thread does not pin its carrier
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final Set<YearMonth> changedWhileLoading = new HashSet<>();
+    private boolean loading;
+
+    public ColumnarExpenseStore(ExpenseRepository expenseRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${expenseai.columnar-store.enabled:false}") boolean enabled) {
+        this.expenseRepository = expenseRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        // updates run after the writing transaction committed, while its resources are still bound
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+
+        if (enabled) {
+            Gauge.builder("expense.columnar.rows", this, ColumnarExpenseStore::size)
+                    .register(meterRegistry);
+            Gauge.builder("expense.columnar.bytes", this, ColumnarExpenseStore::estimatedBytes)
+                    .baseUnit("bytes")
+                    .description("Estimated heap used by the columnar expense store")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Streams the whole table into a new set of columns and swaps it in. Runs as part of the startup warm-up
+     * and on {@code POST /actuator/columnarstore}.
+     */
+    public void load() {
+        if (!enabled) return;
+        loadLock.lock();
+        try {
+            loadAll();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void loadAll() {
+        reloadLock.lock();
+        try {
+            // reads go to the database while a reload is running, changes are queued for afterwards
+            ready = false;
+            loading = true;
+        } finally {
+            reloadLock.unlock();
+        }
+        long startNanos = System.nanoTime();
+        ExpenseColumns loaded = new ExpenseColumns();
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ExpenseDto> rows = expenseRepository.streamRows()) {
+                    rows.forEach(loaded::append);
+                }
+            });
+        } catch (RuntimeException e) {
+            reloadLock.lock();
+            try {
+                changedWhileLoading.clear();
+                loading = false;
+            } finally {
+                reloadLock.unlock();
+            }
+            throw e;
+        }
+        reloadLock.lock();
+        try {
+            write(() -> columns = loaded);
+            // months written during the load may or may not be in the snapshot the stream read
+            changedWhileLoading.forEach(this::reloadMonth);
+            ready = true;
+        } finally {
+            changedWhileLoading.clear();
+            loading = false;
+            reloadLock.unlock();
+        }
+        log.info("Columnar expense store loaded " + loaded.size() + " rows in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms, ~" + loaded.estimatedBytes() / 1024 + " KiB");
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        if (!enabled || event.months().isEmpty()) return;
+        reloadLock.lock();
+        try {
+            if (loading) {
+                changedWhileLoading.addAll(event.months());
+                return;
+            }
+            // the initial load has not started yet and will read these months anyway
+            if (!ready) return;
+            if (event.expenseIds().isEmpty()) {
+                // the ids are not known (changes were missed, or too many for one bus message)
+                event.months().forEach(this::reloadMonth);
+            } else {
+                applyRows(event.expenseIds(), event.months());
+            }
+        } catch (RuntimeException e) {
+            // the write itself has committed; serve reads from the database until the next load()
+            ready = false;
+            log.log(Level.WARNING, "Columnar expense store could not reload " + event.months()
+                    + ", reads go to the database until it is loaded again", e);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public List<ExpenseDto> between(LocalDate from, LocalDate to) {
+        return read(() -> columns.between(from, to));
+    }
+
+    public Map<String, Double> totalsByCategory(LocalDate from, LocalDate to) {
+        return read(() -> columns.totalsByCategory(from, to));
+    }
+
+    public double total(LocalDate from, LocalDate to) {
+        return read(() -> columns.total(from, to));
+    }
+
+    public List<ExpenseDto> top(LocalDate from, LocalDate to, int limit) {
+        return read(() -> columns.top(from, to, limit));
+    }
+
+    public int size() {
+        return read(() -> columns.size());
+    }
+
+    public long estimatedBytes() {
+        return read(() -> columns.estimatedBytes());
+    }
+
+    /**
+     * Compares row count and sum (in cents) per month and category with a GROUP BY over the expense table
+     * and returns one line per difference; empty means consistent. Amounts with more than two decimals
+     * are compared after rounding, as the store keeps cents.
+     */
+    public List<String> differencesFromDatabase() {
+        Map<YearMonth, Map<String, long[]>> stored = read(() -> columns.aggregateByMonth());
+        Map<YearMonth, Map<String, long[]>> database = new TreeMap<>();
+        for (ExpenseRepository.MonthCategoryAggregate row : expenseRepository.aggregateByMonthAndCategory()) {
+            database.computeIfAbsent(YearMonth.of(row.getYear(), row.getMonth()), m -> new TreeMap<>())
+                    .put(row.getCategory(), new long[]{row.getCount(), Math.round(row.getTotal() * 100)});
+        }
+        Set<YearMonth> months = new TreeSet<>(stored.keySet());
+        months.addAll(database.keySet());
+        List<String> differences = new ArrayList<>();
+        for (YearMonth month : months) {
+            Map<String, long[]> storedMonth = stored.getOrDefault(month, Map.of());
+            Map<String, long[]> databaseMonth = database.getOrDefault(month, Map.of());
+            Set<String> categories = new TreeSet<>(storedMonth.keySet());
+            categories.addAll(databaseMonth.keySet());
+            for (String category : categories) {
+                long[] s = storedMonth.getOrDefault(category, new long[2]);
+                long[] d = databaseMonth.getOrDefault(category, new long[2]);
+                // per-row rounding to cents can move the sum by up to half a cent per row
+                if (s[0] != d[0] || Math.abs(s[1] - d[1]) > Math.max(1, d[0] / 2)) {
+                    differences.add(month + " " + category + ": store " + s[0] + " rows / " + s[1] / 100.0
+                            + ", database " + d[0] + " rows / " + d[1] / 100.0);
+                }
+            }
+        }
+        return differences;
+    }
+
+    // caller holds reloadLock, so changes are applied in the order their rows were read
+    private void applyRows(Set<Long> ids, Set<YearMonth> months) {
+        // from the primary: a read replica may not have the write yet; ids not found were deleted
+        List<ExpenseDto> found = ReadRouting.onPrimary(() ->
+                readOnlyTransactionTemplate.execute(status -> expenseRepository.findRowsByIdIn(ids)));
+        List<ExpenseDto> rows = found == null ? List.of() : found;
+        // a row may have moved again since this event was published; drop it from where it is now too
+        Set<YearMonth> touched = new HashSet<>(months);
+        rows.stream().filter(row -> row.date() != null).forEach(row -> touched.add(YearMonth.from(row.date())));
+        write(() -> columns.upsert(touched, ids, rows));
+    }
+
+    // caller holds reloadLock
+    private void reloadMonth(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.atEndOfMonth();
+        // from the primary: a read replica may not have the write yet
+        List<ExpenseDto> rows = ReadRouting.onPrimary(() ->
+                readOnlyTransactionTemplate.execute(status -> expenseRepository.findRowsBetween(from, to)));
+        write(() -> columns.replaceRange(from, to, rows == null ? List.of() : rows));
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
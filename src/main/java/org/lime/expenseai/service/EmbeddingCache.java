@@ -0,0 +1,188 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lime.expenseai.entity.EmbeddingCacheEntry;
+import org.lime.expenseai.repository.EmbeddingCacheRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded LRU cache of embedding vectors keyed by (embedding model, normalized text).
+ * Entries are written through to the embedding_cache_entry table and reloaded per model
+ * on first use, so a restart starts warm. Every {@code maxSize / 10} writes the table is pruned to its
+ * {@code maxSize} newest rows by created_at, which also removes rows other replicas wrote and evicted.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Logger log = Logger.getLogger(EmbeddingCache.class.getName());
+
+    private final EmbeddingCacheRepository repository;
+    private final int maxSize;
+    private final boolean persistent;
+    private final int pruneInterval;
+
+    // access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, float[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<String> loadedModels = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong writesSincePrune = new AtomicLong();
+
+    public EmbeddingCache(
+            EmbeddingCacheRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${expenseai.embedding-cache.max-size:10000}") int maxSize,
+            @Value("${expenseai.embedding-cache.persistent:true}") boolean persistent
+    ) {
+        this.repository = repository;
+        this.maxSize = maxSize;
+        this.persistent = persistent;
+        this.pruneInterval = Math.max(1, maxSize / 10);
+
+        FunctionCounter.builder("embedding.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("embedding.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("embedding.cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("embedding.cache.size", this, EmbeddingCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lower-cases, trims and collapses whitespace so "  Dinner " and "dinner" share one entry.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public float[] get(String model, String normalizedText) {
+        loadIfNeeded(model);
+        String key = key(model, normalizedText);
+        float[] vector;
+        synchronized (entries) {
+            vector = entries.get(key);
+        }
+        if (vector == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return vector;
+    }
+
+    public void put(String model, String normalizedText, float[] vector) {
+        String key = key(model, normalizedText);
+        putInMemory(key, vector);
+        if (!persistent) return;
+        try {
+            repository.save(new EmbeddingCacheEntry(key, model, normalizedText, toBytes(vector), Instant.now()));
+            if (writesSincePrune.incrementAndGet() >= pruneInterval) {
+                writesSincePrune.set(0);
+                int deleted = repository.deleteCreatedBeforeRow(Math.max(0, maxSize - 1));
+                log.fine(() -> "Pruned " + deleted + " embedding cache rows");
+            }
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to persist embedding cache entry", e);
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void putInMemory(String key, float[] vector) {
+        int evicted = 0;
+        synchronized (entries) {
+            entries.put(key, vector);
+            Iterator<Map.Entry<String, float[]>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                evicted++;
+            }
+        }
+        evictions.addAndGet(evicted);
+    }
+
+    private void loadIfNeeded(String model) {
+        if (!persistent || !loadedModels.add(model)) return;
+        try {
+            List<EmbeddingCacheEntry> stored = repository.findByModelOrderByCreatedAtDesc(model, PageRequest.of(0, maxSize));
+            synchronized (entries) {
+                // oldest first, so the newest rows end up most recently used
+                for (int i = stored.size() - 1; i >= 0; i--) {
+                    EmbeddingCacheEntry entry = stored.get(i);
+                    entries.putIfAbsent(entry.getCacheKey(), toFloats(entry.getVector()));
+                }
+            }
+            log.info("Loaded " + stored.size() + " cached embeddings for model " + model);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to load embedding cache for model " + model, e);
+        }
+    }
+
+    private static String key(String model, String normalizedText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalizedText.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] toFloats(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,31 @@
+package org.lime.expenseai.service;
+
+/**
+ * Carries committed expense changes to the other replicas of the application, so each can drop what its
+ * in-process caches derived from the changed months. Selected with {@code expenseai.change-bus.type}:
+ * {@code jvm} ({@link InJvmExpenseChangeBus}, the default) or {@code postgres}
+ * ({@link PostgresExpenseChangeBus}).
+ */
+public interface ExpenseChangeBus {
+
+    /**
+     * Sends a local change to the other replicas. Called inside the writing transaction when there is one;
+     * implementations deliver it only if that transaction commits.
+     */
+    void publish(ExpensesChangedEvent event);
+
+    /**
+     * Registers the receiver of changes made by other replicas; there is one per application.
+     */
+    void subscribe(Receiver receiver);
+
+    interface Receiver {
+
+        void onRemoteChange(ExpensesChangedEvent event);
+
+        /**
+         * Changes may have been lost, e.g. while the connection to the broker was down.
+         */
+        void onChangesMissed();
+    }
+}
@@ -0,0 +1,59 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Connects {@link ExpensesChangedEvent} with the {@link ExpenseChangeBus}: local changes are handed to
+ * the bus before their transaction commits (so a bus that sends within the transaction, like NOTIFY,
+ * is atomic with the write), and changes from other replicas are published here as remote events, which
+ * the existing listeners (insight cache, month data versions, columnar store) handle like local ones.
+ * When the bus may have lost changes, every month that has expenses is treated as changed.
+ */
+@Component
+public class ExpenseChangeRelay implements ExpenseChangeBus.Receiver {
+
+    private static final Logger log = Logger.getLogger(ExpenseChangeRelay.class.getName());
+
+    private final ExpenseChangeBus bus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpenseRepository expenseRepository;
+
+    public ExpenseChangeRelay(ExpenseChangeBus bus,
+                              ApplicationEventPublisher eventPublisher,
+                              ExpenseRepository expenseRepository) {
+        this.bus = bus;
+        this.eventPublisher = eventPublisher;
+        this.expenseRepository = expenseRepository;
+        bus.subscribe(this);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        if (!event.remote() && !event.months().isEmpty()) {
+            bus.publish(event);
+        }
+    }
+
+    @Override
+    public void onRemoteChange(ExpensesChangedEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+
+    @Override
+    public void onChangesMissed() {
+        Set<YearMonth> months = expenseRepository.findMonths().stream()
+                .map(month -> YearMonth.of(month.getYear(), month.getMonth()))
+                .collect(Collectors.toSet());
+        log.warning("Expense changes from other replicas may have been missed; invalidating " + months.size() + " months");
+        eventPublisher.publishEvent(new ExpensesChangedEvent(Set.of(), months, true));
+    }
+}
@@ -0,0 +1,300 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.ExpenseDto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Expense rows as parallel primitive arrays sorted by (date, id): epoch day, id, amount in minor units
+ * (cents), a category code and a description code. Categories and descriptions are dictionary-encoded;
+ * category codes start with the {@link Category} ordinals, -1 stands for null. A date range is located with
+ * two binary searches and aggregated in a loop over the arrays, without creating objects per row.
+ * <p>
+ * Amounts are rounded to cents. Descriptions stay in the dictionary after their rows are deleted. Past
+ * {@link #MAX_CATEGORY_CODES} distinct categories, further ones are stored as OTHER.
+ * Not thread-safe; {@link ColumnarExpenseStore} guards it with a read-write lock.
+ */
+final class ExpenseColumns {
+
+    private static final Comparator<ExpenseDto> ORDER = Comparator
+            .comparing(ExpenseDto::date)
+            .thenComparing(ExpenseDto::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+    // 4 (day) + 8 (id) + 8 (amount) + 2 (category) + 4 (description)
+    static final int BYTES_PER_ROW = 26;
+    static final int MAX_CATEGORY_CODES = Short.MAX_VALUE + 1;
+    static final String OVERFLOW_CATEGORY = "OTHER";
+
+    private int size;
+    private int[] days = new int[16];
+    private long[] ids = new long[16];
+    private long[] amountsMinor = new long[16];
+    private short[] categories = new short[16];
+    private int[] descriptions = new int[16];
+
+    private final List<String> categoryNames = new ArrayList<>();
+    private final Map<String, Short> categoryCodes = new HashMap<>();
+    private final List<String> descriptionNames = new ArrayList<>();
+    private final Map<String, Integer> descriptionCodes = new HashMap<>();
+    private long descriptionChars;
+
+    ExpenseColumns() {
+        for (Category category : Category.values()) {
+            categoryCode(category.name());
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row; rows must arrive in (date, id) order, as from {@code order by e.date, e.id}.
+     * Rows without a date are skipped, since no range query can select them.
+     */
+    void append(ExpenseDto row) {
+        if (row.date() == null) return;
+        ensureCapacity(size + 1);
+        set(size++, row);
+    }
+
+    /**
+     * Replaces every row dated within [from, to] with the given rows, which must all fall in that range.
+     */
+    void replaceRange(LocalDate from, LocalDate to, List<ExpenseDto> rows) {
+        List<ExpenseDto> sorted = rows.stream().filter(row -> row.date() != null).sorted(ORDER).toList();
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        int delta = sorted.size() - (hi - lo);
+        if (delta != 0) {
+            ensureCapacity(size + delta);
+            int tail = size - hi;
+            System.arraycopy(days, hi, days, hi + delta, tail);
+            System.arraycopy(ids, hi, ids, hi + delta, tail);
+            System.arraycopy(amountsMinor, hi, amountsMinor, hi + delta, tail);
+            System.arraycopy(categories, hi, categories, hi + delta, tail);
+            System.arraycopy(descriptions, hi, descriptions, hi + delta, tail);
+            size += delta;
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            set(lo + i, sorted.get(i));
+        }
+    }
+
+    /**
+     * Removes the rows with the given ids that are dated within one of the months, then inserts the given
+     * rows (new or replacing removed ones) at their (date, id) positions. Both steps are a single pass over
+     * the arrays from the first changed month on.
+     */
+    void upsert(Set<YearMonth> months, Set<Long> removedIds, List<ExpenseDto> rows) {
+        int write = size;
+        int[][] ranges = months.stream().sorted()
+                .map(month -> new int[]{lowerBound((int) month.atDay(1).toEpochDay()),
+                        lowerBound((int) month.atEndOfMonth().toEpochDay() + 1)})
+                .toArray(int[][]::new);
+        if (ranges.length > 0 && !removedIds.isEmpty()) {
+            write = ranges[0][0];
+            int range = 0;
+            for (int read = write; read < size; read++) {
+                while (range < ranges.length && read >= ranges[range][1]) range++;
+                boolean inRange = range < ranges.length && read >= ranges[range][0];
+                if (inRange && removedIds.contains(ids[read])) continue;
+                move(read, write++);
+            }
+        }
+        size = write;
+
+        List<ExpenseDto> sorted = rows.stream().filter(row -> row.date() != null).sorted(ORDER).toList();
+        ensureCapacity(size + sorted.size());
+        // merge from the back, so every existing row moves at most once
+        int existing = size - 1;
+        for (int next = sorted.size() - 1, target = size + sorted.size() - 1; next >= 0; target--) {
+            ExpenseDto row = sorted.get(next);
+            int day = (int) row.date().toEpochDay();
+            long id = row.id() == null ? 0 : row.id();
+            if (existing >= 0 && (days[existing] > day || days[existing] == day && ids[existing] > id)) {
+                move(existing--, target);
+            } else {
+                set(target, row);
+                next--;
+            }
+        }
+        size += sorted.size();
+    }
+
+    List<ExpenseDto> between(LocalDate from, LocalDate to) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        List<ExpenseDto> rows = new ArrayList<>(hi - lo);
+        for (int i = lo; i < hi; i++) {
+            rows.add(row(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Sums per category name, null categories counted as OTHER like the SQL aggregates.
+     */
+    Map<String, Double> totalsByCategory(LocalDate from, LocalDate to) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        long[] sums = new long[categoryNames.size() + 1];
+        boolean[] seen = new boolean[sums.length];
+        for (int i = lo; i < hi; i++) {
+            // slot 0 is the null category
+            int slot = categories[i] + 1;
+            sums[slot] += amountsMinor[i];
+            seen[slot] = true;
+        }
+        Map<String, Double> totals = new TreeMap<>();
+        for (int slot = 0; slot < sums.length; slot++) {
+            if (seen[slot]) {
+                totals.merge(slot == 0 ? "OTHER" : categoryNames.get(slot - 1), sums[slot] / 100.0, Double::sum);
+            }
+        }
+        return totals;
+    }
+
+    double total(LocalDate from, LocalDate to) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        long sum = 0;
+        for (int i = lo; i < hi; i++) {
+            sum += amountsMinor[i];
+        }
+        return sum / 100.0;
+    }
+
+    /**
+     * The {@code limit} largest amounts in [from, to], largest first.
+     */
+    List<ExpenseDto> top(LocalDate from, LocalDate to, int limit) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        int[] best = new int[limit];
+        int count = 0;
+        for (int i = lo; i < hi; i++) {
+            if (count == limit && amountsMinor[i] <= amountsMinor[best[count - 1]]) continue;
+            int j = count < limit ? count++ : count - 1;
+            while (j > 0 && amountsMinor[best[j - 1]] < amountsMinor[i]) {
+                best[j] = best[j - 1];
+                j--;
+            }
+            best[j] = i;
+        }
+        List<ExpenseDto> rows = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            rows.add(row(best[k]));
+        }
+        return rows;
+    }
+
+    /**
+     * Count and sum in cents per (month, category), for comparing with the database.
+     */
+    Map<YearMonth, Map<String, long[]>> aggregateByMonth() {
+        Map<YearMonth, Map<String, long[]>> result = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(days[i]));
+            String category = categories[i] < 0 ? "OTHER" : categoryNames.get(categories[i]);
+            long[] countAndSum = result.computeIfAbsent(month, m -> new TreeMap<>())
+                    .computeIfAbsent(category, c -> new long[2]);
+            countAndSum[0]++;
+            countAndSum[1] += amountsMinor[i];
+        }
+        return result;
+    }
+
+    /**
+     * Heap used by the columns (allocated capacity) and the dictionaries, approximated from their sizes.
+     */
+    long estimatedBytes() {
+        long columns = (long) days.length * BYTES_PER_ROW;
+        // per string: header and array (~40 bytes) plus a HashMap node and boxed code (~48 bytes)
+        long dictionary = descriptionChars + (long) descriptionNames.size() * 88;
+        return columns + dictionary;
+    }
+
+    private ExpenseDto row(int i) {
+        return new ExpenseDto(ids[i], LocalDate.ofEpochDay(days[i]),
+                categories[i] < 0 ? null : categoryNames.get(categories[i]),
+                amountsMinor[i] / 100.0,
+                descriptions[i] < 0 ? null : descriptionNames.get(descriptions[i]));
+    }
+
+    private void set(int i, ExpenseDto row) {
+        days[i] = (int) row.date().toEpochDay();
+        ids[i] = row.id() == null ? 0 : row.id();
+        amountsMinor[i] = Math.round(row.amount() * 100);
+        categories[i] = row.category() == null ? -1 : categoryCode(row.category());
+        descriptions[i] = row.description() == null ? -1 : descriptionCode(row.description());
+    }
+
+    private void move(int from, int to) {
+        if (from == to) return;
+        days[to] = days[from];
+        ids[to] = ids[from];
+        amountsMinor[to] = amountsMinor[from];
+        categories[to] = categories[from];
+        descriptions[to] = descriptions[from];
+    }
+
+    private short categoryCode(String name) {
+        Short code = categoryCodes.get(name);
+        if (code == null) {
+            // the last free code is kept for OTHER, which then stands for every further category
+            if (categoryNames.size() >= MAX_CATEGORY_CODES - 1 && !name.equals(OVERFLOW_CATEGORY)) {
+                return categoryCode(OVERFLOW_CATEGORY);
+            }
+            code = (short) categoryNames.size();
+            categoryNames.add(name);
+            categoryCodes.put(name, code);
+        }
+        return code;
+    }
+
+    private int descriptionCode(String description) {
+        Integer code = descriptionCodes.get(description);
+        if (code == null) {
+            code = descriptionNames.size();
+            descriptionNames.add(description);
+            descriptionCodes.put(description, code);
+            descriptionChars += description.length();
+        }
+        return code;
+    }
+
+    // first index whose day is >= day
+    private int lowerBound(int day) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= days.length) return;
+        int newCapacity = Math.max(capacity, days.length + (days.length >> 1));
+        days = Arrays.copyOf(days, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        amountsMinor = Arrays.copyOf(amountsMinor, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+    }
+}
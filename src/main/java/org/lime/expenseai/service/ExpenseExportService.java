@@ -0,0 +1,105 @@
+package org.lime.expenseai.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.lime.expenseai.model.ExpenseDto;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes expenses as CSV or NDJSON straight from a database cursor to an output stream.
+ */
+@Service
+public class ExpenseExportService {
+    private static final Logger log = Logger.getLogger(ExpenseExportService.class.getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final ExpenseService expenseService;
+    private final ObjectWriter jsonWriter;
+
+    public ExpenseExportService(ExpenseService expenseService, ObjectMapper objectMapper) {
+        this.expenseService = expenseService;
+        // one row per call: must neither flush nor close the shared writer
+        this.jsonWriter = objectMapper.writerFor(ExpenseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Exports the expenses between from and to (inclusive, null for open) and returns the row count.
+     */
+    public long export(Format format, LocalDate from, LocalDate to, boolean gzip, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long[] rows = {0};
+        if (format == Format.CSV) {
+            writer.write("id,date,category,amount,description\n");
+        }
+        try {
+            expenseService.forEachExpense(from, to, dto -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, dto);
+                    } else {
+                        jsonWriter.writeValue(writer, dto);
+                        writer.write('\n');
+                    }
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // finishes the gzip trailer as well
+        writer.close();
+        log.info("Exported " + rows[0] + " expenses as " + format + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return rows[0];
+    }
+
+    private static void writeCsv(Writer writer, ExpenseDto dto) throws IOException {
+        writer.write(dto.id() == null ? "" : dto.id().toString());
+        writer.write(',');
+        writer.write(dto.date() == null ? "" : dto.date().toString());
+        writer.write(',');
+        writer.write(csvField(dto.category()));
+        writer.write(',');
+        writer.write(BigDecimal.valueOf(dto.amount()).toPlainString());
+        writer.write(',');
+        writer.write(csvField(dto.description()));
+        writer.write('\n');
+    }
+
+    private static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,302 @@
+package org.lime.expenseai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.ImportError;
+import org.lime.expenseai.model.ImportResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams bank statement rows (CSV with a header line, or NDJSON) into the expense table.
+ * Input is read record by record and flushed every batch-size rows, so memory does not grow with file size.
+ */
+@Service
+public class ExpenseImportService {
+    private static final Logger log = Logger.getLogger(ExpenseImportService.class.getName());
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // a quote left open would otherwise join the rest of the file into one record
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final ExpenseService expenseService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ExpenseImportService(ExpenseService expenseService,
+                                ObjectMapper objectMapper,
+                                @Value("${expenseai.import.batch-size:1000}") int batchSize) {
+        this.expenseService = expenseService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * CSV with a header naming the date, amount, description and (optional) category columns.
+     * Comma and semicolon delimiters are detected from the header; quoted fields may contain the delimiter
+     * and line breaks. A byte order mark before the header is ignored. Errors report the line a record starts on.
+     */
+    public ImportResult importCsv(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        String header = reader.readLine();
+        if (header == null) {
+            return new ImportResult(0, 0, List.of(), 0);
+        }
+        // spreadsheet exports often start with a UTF-8 byte order mark
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char delimiter = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header, delimiter);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        Integer dateCol = columns.get("date");
+        Integer amountCol = columns.get("amount");
+        Integer descriptionCol = columns.get("description");
+        Integer categoryCol = columns.get("category");
+        if (dateCol == null || amountCol == null || descriptionCol == null) {
+            return new ImportResult(0, 0, List.of(new ImportError(1, "Header must contain date, amount and description")), 0);
+        }
+
+        Batch batch = new Batch();
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            long recordLine = ++lineNumber;
+            // quotes inside a quoted field are doubled, so an odd count means the field goes on in the next line
+            int quotes = quotes(line);
+            if (quotes % 2 != 0) {
+                StringBuilder record = new StringBuilder(line);
+                String next;
+                while (quotes % 2 != 0 && record.length() <= MAX_RECORD_LENGTH && (next = reader.readLine()) != null) {
+                    lineNumber++;
+                    record.append('\n').append(next);
+                    quotes += quotes(next);
+                }
+                if (quotes % 2 != 0) {
+                    batch.fail(recordLine, "Unterminated quoted field");
+                    continue;
+                }
+                line = record.toString();
+            }
+            if (line.isBlank()) continue;
+            try {
+                List<String> fields = splitCsv(line, delimiter);
+                batch.add(recordLine, toDto(
+                        field(fields, dateCol),
+                        categoryCol == null ? null : field(fields, categoryCol),
+                        field(fields, amountCol),
+                        field(fields, descriptionCol)));
+            } catch (IllegalArgumentException e) {
+                batch.fail(recordLine, e.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    /**
+     * One JSON object per line: {"date":"2025-07-25","amount":6.66,"description":"coffee","category":"FOOD"}.
+     */
+    public ImportResult importNdjson(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        Batch batch = new Batch();
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                batch.add(lineNumber, toDto(
+                        text(node, "date"),
+                        text(node, "category"),
+                        text(node, "amount"),
+                        text(node, "description")));
+            } catch (IOException e) {
+                batch.fail(lineNumber, "Invalid JSON");
+            } catch (IllegalArgumentException e) {
+                batch.fail(lineNumber, e.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    private ExpenseDto toDto(String date, String category, String amount, String description) {
+        if (date == null || date.isBlank()) {
+            throw new IllegalArgumentException("Missing date");
+        }
+        if (amount == null || amount.isBlank()) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+        if (description == null || description.isBlank()) {
+            throw new IllegalArgumentException("Missing description");
+        }
+        LocalDate parsedDate;
+        try {
+            parsedDate = LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date (expected yyyy-MM-dd): " + date);
+        }
+        return new ExpenseDto(null, parsedDate, blankToNull(category), parseAmount(amount), description.trim());
+    }
+
+    /**
+     * Accepts both notations: with both separators the last one is the decimal separator ("1,234.56",
+     * "1.234,56"); a single separator that occurs once is decimal ("6,66", "6.66"), one that repeats
+     * groups thousands ("1.234.567").
+     */
+    static double parseAmount(String amount) {
+        String cleaned = amount.trim().replaceAll("[^0-9,.\\-]", "");
+        int lastComma = cleaned.lastIndexOf(',');
+        int lastDot = cleaned.lastIndexOf('.');
+        if (lastComma >= 0 && lastDot >= 0) {
+            cleaned = lastComma > lastDot
+                    ? cleaned.replace(".", "").replace(',', '.')
+                    : cleaned.replace(",", "");
+        } else if (lastComma >= 0) {
+            cleaned = cleaned.indexOf(',') == lastComma ? cleaned.replace(',', '.') : cleaned.replace(",", "");
+        } else if (lastDot >= 0 && cleaned.indexOf('.') != lastDot) {
+            cleaned = cleaned.replace(".", "");
+        }
+        try {
+            return Double.parseDouble(cleaned);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+    }
+
+    // the root cause names the problem, e.g. the violated constraint or the column that is too long
+    private static String failureMessage(RuntimeException e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static int quotes(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') count++;
+        }
+        return count;
+    }
+
+    static List<String> splitCsv(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Accumulates parsed rows and hands them to ExpenseService.addExpenses every batch-size rows. When a batch
+     * fails, its rows are added again one by one so only the offending lines are reported; categories
+     * classified for the batch come from the embedding cache the second time.
+     */
+    private final class Batch {
+        private final long startNanos = System.nanoTime();
+        private final List<ExpenseDto> rows = new ArrayList<>(batchSize);
+        private final List<Long> lines = new ArrayList<>(batchSize);
+        private final List<ImportError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void add(long line, ExpenseDto dto) {
+            rows.add(dto);
+            lines.add(line);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(line, message));
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) return;
+            try {
+                expenseService.addExpenses(List.copyOf(rows));
+                imported += rows.size();
+            } catch (LlmBusyException e) {
+                // the model is saturated, retrying row by row would only add load
+                for (Long line : lines) {
+                    fail(line, "Batch failed: " + failureMessage(e));
+                }
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Import batch of " + rows.size() + " rows failed, retrying them one by one", e);
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        expenseService.addExpenses(List.of(rows.get(i)));
+                        imported++;
+                    } catch (RuntimeException rowFailure) {
+                        fail(lines.get(i), failureMessage(rowFailure));
+                    }
+                }
+            }
+            rows.clear();
+            lines.clear();
+        }
+
+        ImportResult finish() {
+            flush();
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            log.info("Imported " + imported + " expenses (" + failed + " failed) in " + millis + " ms");
+            return new ImportResult(imported, failed, errors, millis);
+        }
+    }
+}
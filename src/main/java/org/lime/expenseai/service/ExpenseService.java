@@ -1,62 +1,305 @@
 package org.lime.expenseai.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
 import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.entity.MonthlyCategoryRollup;
 import org.lime.expenseai.mapper.ExpenseMapper;
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.CategorySource;
 import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.ExpensePage;
 import org.lime.expenseai.model.MonthlySummary;
+import org.lime.expenseai.model.MonthlyTotalsResult;
 import org.lime.expenseai.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 public class ExpenseService {
+    private static final Logger log = Logger.getLogger(ExpenseService.class.getName());
+
+    private static final List<String> CATEGORY_NAMES = Arrays.stream(Category.values()).map(Enum::name).toList();
+    // OTHER is what the classifier answers when no category matches, so classifying those rows again is futile
+    private static final List<String> SETTLED_CATEGORIES =
+            Stream.concat(CATEGORY_NAMES.stream(), Stream.of("OTHER")).toList();
+    private static final int BACKFILL_BATCH_SIZE = 100;
+    private static final int TOP_EXPENSES = 3;
+    private static final int MAX_PAGE_SIZE = 500;
+    // LocalDate.MIN/MAX are outside the range PostgreSQL accepts for a date
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
     private final ExpenseRepository expenseRepository;
 
     private final ExpenseMapper expenseMapper;
 
-    // Constructor for ExpenseService, injecting ExpenseRepository and ExpenseMapper
+    private final CategoryClassifier categoryClassifier;
+
+    private final MonthlyRollupService rollupService;
+
+    private final ColumnarExpenseStore columnarStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean summaryFromRollups;
+
+    // null unless expenseai.write-batching.enabled
+    private final WriteBatcher<NewExpense, ExpenseDto> writeBatcher;
+
+    // Writes classify outside the transaction, then update the expense row and its monthly rollup in one
+    // transaction and publish an ExpensesChangedEvent for caches of derived data. Reads are read-only
+    // transactions, which go to the read replica when one is configured. With write batching, concurrent
+    // addExpense calls outside a transaction are inserted together in one transaction (group commit)
     public ExpenseService(ExpenseRepository expenseRepository,
-                          ExpenseMapper expenseMapper) {
+                          ExpenseMapper expenseMapper,
+                          @Lazy CategoryClassifier categoryClassifier,
+                          MonthlyRollupService rollupService,
+                          ColumnarExpenseStore columnarStore,
+                          TransactionTemplate transactionTemplate,
+                          EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          @Value("${expenseai.summary.source:rollup}") String summarySource,
+                          @Value("${expenseai.write-batching.enabled:false}") boolean writeBatching,
+                          @Value("${expenseai.write-batching.max-batch-size:128}") int maxBatchSize,
+                          @Value("${expenseai.write-batching.max-wait:0ms}") Duration maxWait) {
         this.expenseRepository = expenseRepository;
         this.expenseMapper = expenseMapper;
+        this.categoryClassifier = categoryClassifier;
+        this.rollupService = rollupService;
+        this.columnarStore = columnarStore;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.summaryFromRollups = !"query".equalsIgnoreCase(summarySource);
+        this.writeBatcher = writeBatching
+                ? new WriteBatcher<>("expense-insert", maxBatchSize, maxWait, this::insertBatch, meterRegistry)
+                : null;
     }
 
-    public java.util.List<org.lime.expenseai.model.ExpenseDto> getAllExpenses() {
-        return expenseRepository.findAll().stream()
-                .map(expenseMapper::toDto)
-                .toList();
+    @PreDestroy
+    void closeWriteBatcher() {
+        if (writeBatcher != null) {
+            writeBatcher.close();
+        }
+    }
+
+    public boolean hasExpenses() {
+        return expenseRepository.findFirstByOrderByIdAsc().isPresent();
+    }
+
+    /**
+     * Returns one page of expenses, newest first. The cursor is opaque to clients and encodes the
+     * (date, id) of the last row of the previous page, so every page is an index range scan.
+     */
+    @Transactional(readOnly = true)
+    public ExpensePage getPage(String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // fetch one extra row to know whether there is a next page
+        List<Expense> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = expenseRepository.findAllByOrderByDateDescIdDesc(Limit.of(pageSize + 1));
+        } else {
+            String[] key = decodeCursor(cursor);
+            rows = expenseRepository.findPageAfter(LocalDate.parse(key[0]), Long.parseLong(key[1]), Limit.of(pageSize + 1));
+        }
+        boolean hasMore = rows.size() > pageSize;
+        List<Expense> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Expense last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getDate(), last.getId());
+        }
+        return new ExpensePage(page.stream().map(expenseMapper::toDto).toList(), nextCursor);
+    }
+
+    /**
+     * Streams every expense, newest first, through a database cursor inside a read-only transaction.
+     * Rows are detached once handed to the consumer, so memory stays flat regardless of table size.
+     */
+    public void forEachExpense(Consumer<ExpenseDto> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Expense> stream = expenseRepository.streamAll()) {
+                forEachDetached(stream, consumer);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #forEachExpense(Consumer)} for a date range in ascending (date, id) order;
+     * null bounds are open.
+     */
+    public void forEachExpense(LocalDate from, LocalDate to, Consumer<ExpenseDto> consumer) {
+        LocalDate start = from == null ? EARLIEST_DATE : from;
+        LocalDate end = to == null ? LATEST_DATE : to;
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Expense> stream = expenseRepository.streamByDateBetween(start, end)) {
+                forEachDetached(stream, consumer);
+            }
+        });
+    }
+
+    private void forEachDetached(Stream<Expense> stream, Consumer<ExpenseDto> consumer) {
+        stream.forEach(expense -> {
+            consumer.accept(expenseMapper.toDto(expense));
+            entityManager.detach(expense);
+        });
     }
 
+    // Date-range reads and aggregates are served by the columnar store once it is loaded
+    @Transactional(readOnly = true)
     public List<ExpenseDto> getByMonth(YearMonth month) {
         LocalDate startDate = month.atDay(1);
         LocalDate endDate = month.atEndOfMonth();
+        if (columnarStore.isReady()) {
+            return columnarStore.between(startDate, endDate);
+        }
         return expenseRepository.findByDateBetween(startDate, endDate).stream().map(expenseMapper::toDto).toList();
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseDto> getByDate(LocalDate date) {
+        if (columnarStore.isReady()) {
+            return columnarStore.between(date, date);
+        }
         return expenseRepository.findByDate(date).stream().map(expenseMapper::toDto).toList();
     }
 
-    // Adds a new expense
-    public void addExpense(ExpenseDto expenseDto) {
+    // Adds a new expense; the category is normalized to a Category name before it is stored
+    public ExpenseDto addExpense(ExpenseDto expenseDto) {
+        requireDate(expenseDto);
         Expense expense = expenseMapper.toEntity(expenseDto);
-        expenseRepository.save(expense);
+        boolean userLabeled = knownCategory(expense.getCategory()) != null;
+        expense.setCategory(normalizeCategory(expense.getCategory(), expense.getDescription()));
+        expense.setCategorySource(sourceOf(userLabeled));
+        // inside a caller's transaction the insert has to be part of it
+        if (writeBatcher != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writeBatcher.submit(new NewExpense(expenseMapper.toDto(expense), userLabeled));
+        }
+        return transactionTemplate.execute(status -> {
+            Expense saved = expenseRepository.save(expense);
+            rollupService.add(saved.getDate(), saved.getCategory(), saved.getAmount());
+            publishChange(List.of(saved.getId()), saved.getDate());
+            if (userLabeled) {
+                publishLabel(saved, null, null);
+            }
+            return expenseMapper.toDto(saved);
+        });
     }
 
-    public void deleteExpense(Long id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new ResponseStatusException(NOT_FOUND, "Expense not found");
-        } else {
-            expenseRepository.deleteById(id);
+    // One group commit of the write batcher: all rows in one transaction, ids from the pooled sequence so
+    // Hibernate sends them as JDBC batches. Entities are created anew, so a failed batch can be retried
+    private List<ExpenseDto> insertBatch(List<NewExpense> batch) {
+        return transactionTemplate.execute(status -> {
+            List<Expense> saved = expenseRepository.saveAll(batch.stream()
+                    .map(newExpense -> {
+                        Expense expense = expenseMapper.toEntity(newExpense.expense());
+                        expense.setCategorySource(sourceOf(newExpense.userLabeled()));
+                        return expense;
+                    })
+                    .toList());
+            rollupService.addAll(saved);
+            publishChange(saved);
+            for (int i = 0; i < saved.size(); i++) {
+                if (batch.get(i).userLabeled()) {
+                    publishLabel(saved.get(i), null, null);
+                }
+            }
+            return saved.stream().map(expenseMapper::toDto).toList();
+        });
+    }
+
+    private record NewExpense(ExpenseDto expense, boolean userLabeled) {
+    }
+
+    /**
+     * Adds many expenses at once: unknown categories are classified in one batch, then all rows are
+     * inserted as JDBC batches and the rollups updated in a single transaction.
+     */
+    public List<ExpenseDto> addExpenses(List<ExpenseDto> expenseDtos) {
+        expenseDtos.forEach(ExpenseService::requireDate);
+        List<Expense> expenses = expenseDtos.stream().map(expenseMapper::toEntity).toList();
+        List<Expense> unresolved = new ArrayList<>();
+        List<Expense> userLabeled = new ArrayList<>();
+        for (Expense expense : expenses) {
+            String known = knownCategory(expense.getCategory());
+            if (known != null) {
+                expense.setCategory(known);
+                expense.setCategorySource(CategorySource.USER);
+                userLabeled.add(expense);
+            } else {
+                unresolved.add(expense);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            List<String> categories = categoryClassifier.classifyAll(unresolved.stream()
+                    .map(e -> e.getDescription() != null ? e.getDescription() : e.getCategory())
+                    .toList());
+            for (int i = 0; i < unresolved.size(); i++) {
+                unresolved.get(i).setCategory(categories.get(i));
+                unresolved.get(i).setCategorySource(CategorySource.CLASSIFIER);
+            }
         }
+        return transactionTemplate.execute(status -> {
+            List<Expense> saved = expenseRepository.saveAll(expenses);
+            rollupService.addAll(saved);
+            publishChange(saved);
+            userLabeled.forEach(expense -> publishLabel(expense, null, null));
+            List<ExpenseDto> result = saved.stream().map(expenseMapper::toDto).toList();
+            // keep the persistence context from growing across a long import
+            entityManager.flush();
+            entityManager.clear();
+            return result;
+        });
+    }
+
+    public void deleteExpense(Long id) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Expense expense = expenseRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found"));
+            expenseRepository.delete(expense);
+            rollupService.remove(expense.getDate(), expense.getCategory(), expense.getAmount());
+            publishChange(List.of(id), expense.getDate());
+        });
     }
 
     // Updates an existing expense
@@ -64,61 +307,285 @@ public class ExpenseService {
         if (!expenseRepository.existsById(id)) {
             throw new ResponseStatusException(NOT_FOUND, "Expense not found");
         }
+        requireDate(expenseDto);
         Expense expense = expenseMapper.toEntity(expenseDto);
         expense.setId(id);
-        Expense updatedExpense = expenseRepository.save(expense);
-        return expenseMapper.toDto(updatedExpense);
+        boolean userLabeled = knownCategory(expense.getCategory()) != null;
+        expense.setCategory(normalizeCategory(expense.getCategory(), expense.getDescription()));
+        expense.setCategorySource(sourceOf(userLabeled));
+        return transactionTemplate.execute(status -> {
+            Expense previous = expenseRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found"));
+            LocalDate oldDate = previous.getDate();
+            String oldCategory = previous.getCategory();
+            String oldDescription = previous.getDescription();
+            double oldAmount = previous.getAmount();
+            Expense updatedExpense = expenseRepository.save(expense);
+            rollupService.remove(oldDate, oldCategory, oldAmount);
+            rollupService.add(updatedExpense.getDate(), updatedExpense.getCategory(), updatedExpense.getAmount());
+            publishChange(List.of(id), oldDate, updatedExpense.getDate());
+            if (userLabeled) {
+                publishLabel(updatedExpense, oldDescription, oldCategory);
+            }
+            return expenseMapper.toDto(updatedExpense);
+        });
     }
 
     public ExpenseDto updateExpensePartial(Long id, LocalDate date, String category, Double amount, String description) {
-        Expense expense = expenseRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found"));
-        if (date != null) {
-            expense.setDate(date);
-        }
+        boolean userLabeled = knownCategory(category) != null;
+        String normalizedCategory = null;
         if (category != null) {
-            expense.setCategory(category);
-        }
-        if (amount != null) {
-            expense.setAmount(amount);
-        }
-        if (description != null) {
-            expense.setDescription(description);
+            String classifyText = description;
+            if (classifyText == null) {
+                classifyText = expenseRepository.findById(id)
+                        .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found"))
+                        .getDescription();
+            }
+            normalizedCategory = normalizeCategory(category, classifyText);
         }
-        Expense updatedExpense = expenseRepository.save(expense);
-        return expenseMapper.toDto(updatedExpense);
+        String newCategory = normalizedCategory;
+        return transactionTemplate.execute(status -> {
+            Expense expense = expenseRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found"));
+            LocalDate oldDate = expense.getDate();
+            String oldCategory = expense.getCategory();
+            String oldDescription = expense.getDescription();
+            double oldAmount = expense.getAmount();
+            if (date != null) {
+                expense.setDate(date);
+            }
+            if (newCategory != null) {
+                expense.setCategory(newCategory);
+                expense.setCategorySource(sourceOf(userLabeled));
+            }
+            if (amount != null) {
+                expense.setAmount(amount);
+            }
+            if (description != null) {
+                expense.setDescription(description);
+            }
+            Expense updatedExpense = expenseRepository.save(expense);
+            rollupService.remove(oldDate, oldCategory, oldAmount);
+            rollupService.add(updatedExpense.getDate(), updatedExpense.getCategory(), updatedExpense.getAmount());
+            publishChange(List.of(id), oldDate, updatedExpense.getDate());
+            if (userLabeled) {
+                publishLabel(updatedExpense, oldDescription, oldCategory);
+            }
+            return expenseMapper.toDto(updatedExpense);
+        });
     }
 
     public ExpenseDto updateExpenseByDateAndDescription(LocalDate date, String description, Double amount, String category) {
-        Expense match = expenseRepository.findByDate(date).stream()
-                .filter(e -> e.getDescription() != null && e.getDescription().equalsIgnoreCase(description))
-                .max(Comparator.comparingLong(Expense::getId))
+        Expense match = expenseRepository.findByDateAndDescriptionIgnoreCase(date, description, Limit.of(1)).stream()
+                .findFirst()
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Expense not found for date/description"));
 
         return updateExpensePartial(match.getId(), date, category, amount, description);
     }
 
+    // Aggregates come either from the rollup table or from GROUP BY queries (expenseai.summary.source=query);
+    // both transfer a handful of rows instead of the whole month
+    @Transactional(readOnly = true)
     public MonthlySummary buildMonthlySummary(YearMonth month) {
-        List<ExpenseDto> currentMonth = getByMonth(month);
-        double total = currentMonth.stream().mapToDouble(ExpenseDto::amount).sum();
-        Map<String, Double> byCategory = currentMonth.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        ExpenseDto::category,
-                        java.util.stream.Collectors.summingDouble(ExpenseDto::amount)
-                ));
+        Map<String, Double> byCategory = totalsByCategory(month);
+        double total = byCategory.values().stream().mapToDouble(Double::doubleValue).sum();
         int daysInMonth = month.lengthOfMonth();
         double averageDaily = daysInMonth == 0 ? 0 : total / daysInMonth;
 
-        YearMonth prev = month.minusMonths(1);
-        double prevTotal = getByMonth(prev).stream().mapToDouble(ExpenseDto::amount).sum();
+        double prevTotal = monthTotal(month.minusMonths(1));
         double vsLastMonthPercent = prevTotal == 0 ? 0 : ((total - prevTotal) / prevTotal) * 100;
 
-        List<ExpenseDto> topExpenses = currentMonth.stream()
-                .sorted((a, b) -> Double.compare(b.amount(), a.amount()))
-                .limit(3)
-                .toList();
+        List<ExpenseDto> topExpenses = topExpenses(month);
 
         return new MonthlySummary(month, total, byCategory, averageDaily, vsLastMonthPercent, topExpenses);
     }
 
+    @Transactional(readOnly = true)
+    public MonthlyTotalsResult getMonthlyTotals(YearMonth month) {
+        Map<String, Double> totals = totalsByCategory(month);
+        double totalAmount = totals.values().stream().mapToDouble(Double::doubleValue).sum();
+        return new MonthlyTotalsResult(totals, totalAmount);
+    }
+
+    private Map<String, Double> totalsByCategory(YearMonth month) {
+        if (columnarStore.isReady()) {
+            return columnarStore.totalsByCategory(month.atDay(1), month.atEndOfMonth());
+        }
+        Map<String, Double> totals = new TreeMap<>();
+        if (summaryFromRollups) {
+            for (MonthlyCategoryRollup rollup : rollupService.forMonth(month)) {
+                totals.put(rollup.getCategory(), rollup.getTotal());
+            }
+        } else {
+            for (ExpenseRepository.CategoryTotal row : expenseRepository.sumByCategoryBetween(month.atDay(1), month.atEndOfMonth())) {
+                totals.put(row.getCategory(), row.getTotal());
+            }
+        }
+        return totals;
+    }
+
+    private double monthTotal(YearMonth month) {
+        if (columnarStore.isReady()) {
+            return columnarStore.total(month.atDay(1), month.atEndOfMonth());
+        }
+        if (summaryFromRollups) {
+            return rollupService.forMonth(month).stream().mapToDouble(MonthlyCategoryRollup::getTotal).sum();
+        }
+        return expenseRepository.sumAmountBetween(month.atDay(1), month.atEndOfMonth());
+    }
+
+    private List<ExpenseDto> topExpenses(YearMonth month) {
+        if (columnarStore.isReady()) {
+            return columnarStore.top(month.atDay(1), month.atEndOfMonth(), TOP_EXPENSES);
+        }
+        return expenseRepository
+                .findByDateBetweenOrderByAmountDesc(month.atDay(1), month.atEndOfMonth(), Limit.of(TOP_EXPENSES)).stream()
+                .map(expenseMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Re-classifies stored rows whose category is neither a known Category name nor OTHER (the classifier's
+     * answer when nothing matches), a page at a time by id. The model is called outside any transaction;
+     * each page is then saved in its own, skipping rows edited or deleted meanwhile. The rollups are only
+     * rebuilt if a row's category in the monthly totals changed. Returns the number of rows updated.
+     */
+    public int normalizeStoredCategories() {
+        int updated = 0;
+        int totalsChanged = 0;
+        long afterId = 0;
+        List<Expense> page;
+        do {
+            page = expenseRepository.findUnsettledCategoriesAfter(afterId, SETTLED_CATEGORIES,
+                    Limit.of(BACKFILL_BATCH_SIZE));
+            if (page.isEmpty()) break;
+            afterId = page.get(page.size() - 1).getId();
+            List<String> categories = categoryClassifier.classifyAll(page.stream()
+                    .map(e -> e.getDescription() != null ? e.getDescription() : e.getCategory())
+                    .toList());
+            List<Expense> read = page;
+            Normalized normalized = transactionTemplate.execute(status -> applyCategories(read, categories));
+            updated += normalized.updated();
+            totalsChanged += normalized.totalsChanged();
+        } while (page.size() == BACKFILL_BATCH_SIZE);
+        if (totalsChanged > 0) {
+            rollupService.rebuild();
+        }
+        log.info("Normalized categories of " + updated + " stored expenses");
+        return updated;
+    }
+
+    private record Normalized(int updated, int totalsChanged) {
+    }
+
+    private Normalized applyCategories(List<Expense> read, List<String> categories) {
+        Map<Long, Expense> current = new HashMap<>();
+        expenseRepository.findAllById(read.stream().map(Expense::getId).toList())
+                .forEach(expense -> current.put(expense.getId(), expense));
+        List<Expense> updated = new ArrayList<>();
+        int totalsChanged = 0;
+        for (int i = 0; i < read.size(); i++) {
+            Expense expense = current.get(read.get(i).getId());
+            if (expense == null
+                    || !Objects.equals(expense.getCategory(), read.get(i).getCategory())
+                    || !Objects.equals(expense.getDescription(), read.get(i).getDescription())) {
+                continue;
+            }
+            // the monthly totals count a null category as OTHER
+            if (!categories.get(i).equals(expense.getCategory() == null ? "OTHER" : expense.getCategory())) {
+                totalsChanged++;
+            }
+            expense.setCategory(categories.get(i));
+            expense.setCategorySource(CategorySource.CLASSIFIER);
+            updated.add(expense);
+        }
+        if (!updated.isEmpty()) {
+            expenseRepository.saveAll(updated);
+            publishChange(updated);
+        }
+        return new Normalized(updated.size(), totalsChanged);
+    }
+
+    private void publishChange(List<Expense> expenses) {
+        Set<Long> ids = new HashSet<>();
+        Set<YearMonth> months = new HashSet<>();
+        for (Expense expense : expenses) {
+            ids.add(expense.getId());
+            if (expense.getDate() != null) {
+                months.add(YearMonth.from(expense.getDate()));
+            }
+        }
+        eventPublisher.publishEvent(new ExpensesChangedEvent(ids, months));
+    }
+
+    private void publishChange(List<Long> ids, LocalDate... dates) {
+        Set<YearMonth> months = new HashSet<>();
+        for (LocalDate date : dates) {
+            if (date != null) {
+                months.add(YearMonth.from(date));
+            }
+        }
+        eventPublisher.publishEvent(new ExpensesChangedEvent(Set.copyOf(ids), months));
+    }
+
+    // Categories chosen by users train the local category model; previous values make it a correction
+    private void publishLabel(Expense expense, String previousDescription, String previousCategory) {
+        if (previousCategory != null
+                && previousCategory.equals(expense.getCategory())
+                && Objects.equals(previousDescription, expense.getDescription())) {
+            return;
+        }
+        eventPublisher.publishEvent(new CategoryLabeledEvent(expense.getId(), previousDescription,
+                previousCategory, expense.getDescription(), expense.getCategory()));
+    }
+
+    // the expense table is partitioned by date, so every row needs one
+    private static void requireDate(ExpenseDto expenseDto) {
+        if (expenseDto.date() == null) {
+            throw new ResponseStatusException(BAD_REQUEST, "Expense date is required");
+        }
+    }
+
+    private static String encodeCursor(LocalDate date, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            LocalDate.parse(key[0]);
+            Long.parseLong(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private String normalizeCategory(String category, String description) {
+        // try enum first
+        String known = knownCategory(category);
+        if (known != null) {
+            return known;
+        }
+        return categoryClassifier.classify(description != null ? description : category);
+    }
+
+    private static CategorySource sourceOf(boolean userLabeled) {
+        return userLabeled ? CategorySource.USER : CategorySource.CLASSIFIER;
+    }
+
+    private static String knownCategory(String category) {
+        if (category == null) {
+            return null;
+        }
+        try {
+            return Category.valueOf(category.trim().toUpperCase(Locale.ROOT)).name();
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
 }
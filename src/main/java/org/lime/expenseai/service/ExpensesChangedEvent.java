@@ -0,0 +1,20 @@
+package org.lime.expenseai.service;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Published by ExpenseService inside the writing transaction; listeners that keep derived data
+ * should use {@code @TransactionalEventListener} so they only react once the write has committed.
+ * Changes made by another replica arrive through the {@link ExpenseChangeBus} as {@code remote} events,
+ * published outside any transaction; an empty {@code expenseIds} then means the ids are not known.
+ */
+public record ExpensesChangedEvent(
+    Set<Long> expenseIds,
+    Set<YearMonth> months,
+    boolean remote
+) {
+    public ExpensesChangedEvent(Set<Long> expenseIds, Set<YearMonth> months) {
+        this(expenseIds, months, false);
+    }
+}
@@ -0,0 +1,70 @@
+package org.lime.expenseai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link ExpenseChangeBus} between application contexts of the same JVM that set the same
+ * {@code expenseai.change-bus.jvm-channel}, e.g. two "replicas" started by one test. Without it every context
+ * gets a channel of its own and delivers nothing, which is all a single replica needs; contexts that happen
+ * to share a JVM, such as cached test contexts, never see each other's changes.
+ */
+@Component
+@ConditionalOnProperty(name = "expenseai.change-bus.type", havingValue = "jvm", matchIfMissing = true)
+public class InJvmExpenseChangeBus implements ExpenseChangeBus {
+
+    private static final Map<String, List<InJvmExpenseChangeBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final List<InJvmExpenseChangeBus> channel;
+    private volatile Receiver receiver;
+
+    public InJvmExpenseChangeBus(@Value("${expenseai.change-bus.jvm-channel:}") String channel) {
+        this.channel = channel == null || channel.isBlank()
+                ? new CopyOnWriteArrayList<>()
+                : CHANNELS.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>());
+        this.channel.add(this);
+    }
+
+    @Override
+    public void publish(ExpensesChangedEvent event) {
+        ExpensesChangedEvent remote = new ExpensesChangedEvent(event.expenseIds(), event.months(), true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(remote);
+                }
+            });
+        } else {
+            deliver(remote);
+        }
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @PreDestroy
+    public void close() {
+        channel.remove(this);
+    }
+
+    private void deliver(ExpensesChangedEvent event) {
+        for (InJvmExpenseChangeBus bus : channel) {
+            Receiver target = bus.receiver;
+            if (bus != this && target != null) {
+                target.onRemoteChange(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lime.expenseai.model.Insight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Bounded LRU cache of generated insights. Keys carry the data version of the month and of the
+ * previous month, so a write to either makes the entry unreachable; entries for changed months are
+ * also dropped eagerly to free memory.
+ */
+@Component
+public class InsightCache {
+
+    public record Key(YearMonth month, String language, String currency, long monthVersion, long previousMonthVersion) {
+    }
+
+    private record Entry(Insight insight, double llmSeconds) {
+    }
+
+    private final MonthDataVersions monthDataVersions;
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final DoubleAdder llmSecondsSaved = new DoubleAdder();
+
+    public InsightCache(MonthDataVersions monthDataVersions,
+                        MeterRegistry meterRegistry,
+                        @Value("${expenseai.insight-cache.max-size:500}") int maxSize) {
+        this.monthDataVersions = monthDataVersions;
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("insight.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("insight.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("insight.cache.llm.saved", llmSecondsSaved, DoubleAdder::sum)
+                .description("LLM seconds not spent thanks to cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("insight.cache.size", this, InsightCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the key for the current data versions; call this before reading any expense data.
+     */
+    public Key key(YearMonth month, String language, String currency) {
+        return new Key(month, language, currency,
+                monthDataVersions.version(month),
+                monthDataVersions.version(month.minusMonths(1)));
+    }
+
+    public Insight get(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        llmSecondsSaved.add(entry.llmSeconds());
+        return entry.insight();
+    }
+
+    /**
+     * Like {@link #get} but without counting a hit or miss.
+     */
+    public Insight peek(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry == null ? null : entry.insight();
+        }
+    }
+
+    public void put(Key key, Insight insight, double llmSeconds) {
+        synchronized (entries) {
+            entries.put(key, new Entry(insight, llmSeconds));
+            Iterator<Key> it = entries.keySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> event.months().contains(key.month())
+                    || event.months().contains(key.month().minusMonths(1)));
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package org.lime.expenseai.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.trace.Span;
-import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Scope;
+import org.lime.expenseai.config.ReadRouting;
 import org.lime.expenseai.model.Insight;
 import org.lime.expenseai.model.MonthlySummary;
+import org.lime.expenseai.observability.LlmInstrumentation;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.time.YearMonth;
 import java.util.Locale;
@@ -22,10 +24,25 @@ public class InsightService {
     private static final Tracer tracer = GlobalOpenTelemetry.getTracer("org.lime.expenseai");
 
     private final ExpenseService expenseService;
+    private final InsightCache insightCache;
     private final ChatClient chatClient;
+    private final LlmBulkhead bulkhead;
+    private final LlmInstrumentation llm;
+    // concurrent misses for the same key (month, language, currency, data versions) share one model call,
+    // blocking ones and streaming ones each
+    private final SingleFlight<InsightCache.Key, Insight> inFlight;
 
-    public InsightService(ExpenseService expenseService, ChatClient.Builder chatClientBuilder) {
+    public InsightService(ExpenseService expenseService,
+                          InsightCache insightCache,
+                          ChatClient.Builder chatClientBuilder,
+                          LlmBulkhead bulkhead,
+                          LlmInstrumentation llm,
+                          MeterRegistry meterRegistry) {
         this.expenseService = expenseService;
+        this.insightCache = insightCache;
+        this.bulkhead = bulkhead;
+        this.llm = llm;
+        this.inFlight = new SingleFlight<>(meterRegistry, "insight");
         this.chatClient = chatClientBuilder
                 .defaultSystem("""
                         You are a financial insights assistant. Given a monthly expense summary, produce concise insights:
@@ -41,56 +58,16 @@ public class InsightService {
     public Insight analyze(YearMonth month, String language, String currency) {
         Span span = tracer.spanBuilder("insight.analyze").startSpan();
         try (Scope scope = span.makeCurrent()) {
-            MonthlySummary summary = expenseService.buildMonthlySummary(month);
             String targetLanguage = normalizeLanguage(language);
             String currencyHint = normalizeCurrency(currency);
-            String prompt = """
-                    Analyze this monthly summary and return insights in %s.
-                    Currency: %s. If provided, use this currency in amounts and do not use any other currency symbol.
-                    Summary: %s
-                    """.formatted(targetLanguage, currencyHint, summary);
-
-            Span llmSpan = tracer.spanBuilder("llm.chat").setSpanKind(SpanKind.CLIENT).startSpan();
-            String reply;
-            try (Scope llmScope = llmSpan.makeCurrent()) {
-                long startNanos = System.nanoTime();
-                ChatResponse response = chatClient.prompt()
-                        .user(prompt)
-                        .call()
-                        .chatResponse();
-                long latencyNanos = System.nanoTime() - startNanos;
-                llmSpan.setAttribute("llm.latency", latencyNanos / 1_000_000_000d);
-
-                if (response != null && response.getMetadata() != null) {
-                    String model = response.getMetadata().getModel();
-                    if (model != null && !model.isBlank()) {
-                        llmSpan.setAttribute("llm.model", model);
-                    }
-                    Usage usage = response.getMetadata().getUsage();
-                    if (usage != null) {
-                        Integer inputTokens = usage.getPromptTokens();
-                        Integer outputTokens = usage.getCompletionTokens();
-                        if (inputTokens != null) {
-                            llmSpan.setAttribute("llm.input_tokens", inputTokens);
-                        }
-                        if (outputTokens != null) {
-                            llmSpan.setAttribute("llm.output_tokens", outputTokens);
-                        }
-                    }
-                }
-                reply = (response == null || response.getResult() == null)
-                        ? null
-                        : response.getResult().getOutput().getText();
-            } catch (Exception e) {
-                llmSpan.recordException(e);
-                llmSpan.setStatus(StatusCode.ERROR);
-                throw e;
-            } finally {
-                llmSpan.end();
+            // the key captures the data versions before the summary is read
+            InsightCache.Key cacheKey = insightCache.key(month, targetLanguage, currencyHint);
+            Insight cached = insightCache.get(cacheKey);
+            span.setAttribute("insight.cache_hit", cached != null);
+            if (cached != null) {
+                return cached;
             }
-
-            String content = (reply == null) ? "" : reply.trim();
-            return new Insight(content);
+            return inFlight.execute(cacheKey, () -> generate(cacheKey, month, targetLanguage, currencyHint));
         } catch (Exception e) {
             span.recordException(e);
             span.setStatus(StatusCode.ERROR);
@@ -100,14 +77,92 @@ public class InsightService {
         }
     }
 
+    private Insight generate(InsightCache.Key cacheKey, YearMonth month, String targetLanguage, String currencyHint) {
+        // a call for this key may have completed between the cache miss and joining the flight
+        Insight cached = insightCache.peek(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        String prompt = buildPrompt(month, targetLanguage, currencyHint);
+
+        long startNanos = System.nanoTime();
+        ChatResponse response = bulkhead.call(() -> llm.chat("llm.chat", () -> chatClient.prompt()
+                .user(prompt)
+                .call()
+                .chatResponse()));
+        long latencyNanos = System.nanoTime() - startNanos;
+        String reply = (response == null || response.getResult() == null)
+                ? null
+                : response.getResult().getOutput().getText();
+
+        String content = (reply == null) ? "" : reply.trim();
+        Insight insight = new Insight(content);
+        if (!content.isEmpty()) {
+            insightCache.put(cacheKey, insight, latencyNanos / 1_000_000_000d);
+        }
+        return insight;
+    }
+
+    /**
+     * Streaming variant of {@link #analyze}: a cached insight is emitted as a single chunk, otherwise
+     * the model output is streamed and cached once complete. Concurrent streams for the same key share
+     * one model call.
+     */
+    public Flux<String> analyzeStream(YearMonth month, String language, String currency) {
+        return Flux.defer(() -> {
+            String targetLanguage = normalizeLanguage(language);
+            String currencyHint = normalizeCurrency(currency);
+            InsightCache.Key cacheKey = insightCache.key(month, targetLanguage, currencyHint);
+            Insight cached = insightCache.get(cacheKey);
+            if (cached != null) {
+                return Flux.just(cached.explanation());
+            }
+            return inFlight.executeStream(cacheKey,
+                    () -> generateStream(cacheKey, month, targetLanguage, currencyHint));
+        });
+    }
+
+    private Flux<String> generateStream(InsightCache.Key cacheKey, YearMonth month, String targetLanguage,
+                                        String currencyHint) {
+        // a stream for this key may have completed between the cache miss and joining the flight
+        Insight cached = insightCache.peek(cacheKey);
+        if (cached != null) {
+            return Flux.just(cached.explanation());
+        }
+        String prompt = buildPrompt(month, targetLanguage, currencyHint);
+        StringBuilder content = new StringBuilder();
+        long startNanos = System.nanoTime();
+        return bulkhead.stream(() -> llm.chatStream("llm.chat.stream", chatClient.prompt()
+                        .user(prompt)
+                        .stream()
+                        .chatResponse()))
+                .doOnNext(content::append)
+                .doOnComplete(() -> {
+                    String text = content.toString().trim();
+                    if (!text.isEmpty()) {
+                        insightCache.put(cacheKey, new Insight(text), (System.nanoTime() - startNanos) / 1_000_000_000d);
+                    }
+                });
+    }
+
+    private String buildPrompt(YearMonth month, String targetLanguage, String currencyHint) {
+        // from the primary: the cache key already has the data versions of writes a replica may not have yet
+        MonthlySummary summary = ReadRouting.onPrimary(() -> expenseService.buildMonthlySummary(month));
+        return """
+                Analyze this monthly summary and return insights in %s.
+                Currency: %s. If provided, use this currency in amounts and do not use any other currency symbol.
+                Summary: %s
+                """.formatted(targetLanguage, currencyHint, summary);
+    }
+
     private String normalizeLanguage(String language) {
-        if (language == null || language.isBlank()) return "english";
+        if (language == null || language.isBlank()) return "English";
         String key = language.toLowerCase(Locale.ROOT);
         return switch (key) {
             case "en", "english", "en-us", "en-uk" -> "English";
             case "fr", "french", "fr-fr", "fr-ca" -> "French";
             case "zh", "chinese", "zh-cn", "zh-tw" -> "Chinese";
-            default -> "english";
+            default -> "English";
         };
     }
 
@@ -115,6 +170,7 @@ public class InsightService {
         if (currency == null || currency.isBlank()) {
             return "none";
         }
-        return currency.trim();
+        // "eur" and "EUR" share a cache entry
+        return currency.trim().toUpperCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,181 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit for model calls (chat and embeddings). At most max-concurrent calls run at once
+ * and at most max-waiting callers queue for a permit; anything beyond that, or a caller that waits
+ * longer than acquire-timeout, is rejected with {@link LlmBusyException} instead of holding a request
+ * thread. Requests that never touch the model are not affected.
+ * <p>
+ * Blocking calls are reentrant per thread: a tool invoked from inside a chat call (e.g. the embedding
+ * classifier) reuses the chat call's permit instead of queueing behind it. Tool calls of a streamed chat run
+ * on Reactor threads, so the chat hands its {@link Permit} to them through the {@link ChatTurn} instead;
+ * otherwise max-concurrent streaming chats would each wait for a second permit that never frees up.
+ */
+@Component
+public class LlmBulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final Duration acquireTimeout;
+    private final Duration streamIdleTimeout;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ThreadLocal<Permit> heldPermit = new ThreadLocal<>();
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public LlmBulkhead(MeterRegistry meterRegistry,
+                       @Value("${expenseai.llm.bulkhead.max-concurrent:4}") int maxConcurrent,
+                       @Value("${expenseai.llm.bulkhead.max-waiting:16}") int maxWaiting,
+                       @Value("${expenseai.llm.bulkhead.acquire-timeout:5s}") Duration acquireTimeout,
+                       @Value("${expenseai.llm.bulkhead.stream-idle-timeout:120s}") Duration streamIdleTimeout) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeout = acquireTimeout;
+        this.streamIdleTimeout = streamIdleTimeout;
+
+        Gauge.builder("llm.bulkhead.active", this, LlmBulkhead::activeCalls)
+                .description("Model calls currently holding a permit")
+                .register(meterRegistry);
+        Gauge.builder("llm.bulkhead.waiting", waiting, AtomicInteger::get)
+                .description("Callers queued for a permit")
+                .register(meterRegistry);
+        rejectedQueueFull = Counter.builder("llm.bulkhead.rejected")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        rejectedTimeout = Counter.builder("llm.bulkhead.rejected")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a blocking model call under a permit.
+     */
+    public <T> T call(Supplier<T> modelCall) {
+        return callWithPermit(permit -> modelCall.get());
+    }
+
+    /**
+     * Same as {@link #call(Supplier)}, handing the permit to the call so work it starts on other threads can
+     * {@link Permit#share share} it.
+     */
+    public <T> T callWithPermit(Function<Permit, T> modelCall) {
+        Permit held = heldPermit.get();
+        if (held != null) {
+            return modelCall.apply(held);
+        }
+        Permit permit = acquirePermit();
+        heldPermit.set(permit);
+        try {
+            return modelCall.apply(permit);
+        } finally {
+            heldPermit.remove();
+            permit.release();
+        }
+    }
+
+    /**
+     * Holds a permit from subscription until the stream completes, fails or is cancelled.
+     * A stream that produces nothing for stream-idle-timeout fails with a TimeoutException.
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> modelStream) {
+        return streamWithPermit(permit -> modelStream.get());
+    }
+
+    /**
+     * Same as {@link #stream(Supplier)}, handing the permit to the stream so its tool calls can
+     * {@link Permit#share share} it.
+     */
+    public <T> Flux<T> streamWithPermit(Function<Permit, Flux<T>> modelStream) {
+        return Flux.using(
+                this::acquirePermit,
+                permit -> modelStream.apply(permit).timeout(streamIdleTimeout),
+                Permit::release);
+    }
+
+    public int activeCalls() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private Permit acquirePermit() {
+        acquire();
+        return new Permit();
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            throw new LlmBusyException(false, "Too many model requests in flight, try again shortly");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedTimeout.increment();
+                throw new LlmBusyException(true, "Timed out waiting for the model after " + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmBusyException(true, "Interrupted while waiting for the model");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * A permit held by one chat or model call, released at most once, whichever of complete/error/cancel
+     * comes first.
+     */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        /**
+         * Runs work belonging to the call holding this permit on the current thread; model calls made by it
+         * go through without taking another permit. Once the permit is released they take their own.
+         */
+        public <T> T share(Supplier<T> work) {
+            if (released.get()) {
+                return work.get();
+            }
+            Permit previous = heldPermit.get();
+            heldPermit.set(this);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    heldPermit.remove();
+                } else {
+                    heldPermit.set(previous);
+                }
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.lime.expenseai.service;
+
+/**
+ * Thrown by {@link LlmBulkhead} when a model call is rejected: either the wait queue is full, or the
+ * caller waited longer than the acquire timeout.
+ */
+public class LlmBusyException extends RuntimeException {
+
+    private final boolean timedOut;
+
+    public LlmBusyException(boolean timedOut, String message) {
+        super(message);
+        this.timedOut = timedOut;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -0,0 +1,315 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.CategorySource;
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * In-process category model ({@link NgramNaiveBayes}) that answers for descriptions it is confident about,
+ * so {@link CategoryClassifier} only embeds the rest. It is trained only on categories chosen by users, never
+ * on its own or the classifier's answers: after startup from the expense rows with category source
+ * {@link CategorySource#USER}, then incrementally as users pick categories. It is snapshotted to disk with
+ * the highest expense id it has seen, so a restart only trains on newer rows.
+ * <p>
+ * Metrics: {@code category.local.predictions{result=confident|fallback|untrained}},
+ * {@code category.local.fallback.agreement{result=agree|disagree}} (local guess vs. embedding answer),
+ * {@code category.local.accuracy{result=correct|incorrect}} (prediction vs. the category a user then chose),
+ * {@code category.local.examples}.
+ */
+@Component
+public class LocalCategoryModel {
+
+    private static final Logger log = Logger.getLogger(LocalCategoryModel.class.getName());
+    // snapshots without it were also trained on predicted categories and are discarded
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final List<String> CATEGORY_NAMES = Arrays.stream(Category.values()).map(Enum::name).toList();
+
+    private final ExpenseRepository expenseRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+    private final double threshold;
+    private final int minExamples;
+    private final Path snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private NgramNaiveBayes model = new NgramNaiveBayes();
+    private long trainedThroughId;
+    private boolean dirty;
+
+    private final AtomicLong confident = new AtomicLong();
+    private final AtomicLong fallback = new AtomicLong();
+    private final AtomicLong untrained = new AtomicLong();
+    private final AtomicLong agree = new AtomicLong();
+    private final AtomicLong disagree = new AtomicLong();
+    private final AtomicLong correct = new AtomicLong();
+    private final AtomicLong incorrect = new AtomicLong();
+
+    public LocalCategoryModel(ExpenseRepository expenseRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${expenseai.category-model.enabled:true}") boolean enabled,
+                              @Value("${expenseai.category-model.threshold:0.95}") double threshold,
+                              @Value("${expenseai.category-model.min-examples:50}") int minExamples,
+                              @Value("${expenseai.category-model.snapshot-path:data/category-model.bin}") String snapshotPath) {
+        this.expenseRepository = expenseRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.minExamples = minExamples;
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+
+        counter(meterRegistry, "category.local.predictions", confident, "confident");
+        counter(meterRegistry, "category.local.predictions", fallback, "fallback");
+        counter(meterRegistry, "category.local.predictions", untrained, "untrained");
+        counter(meterRegistry, "category.local.fallback.agreement", agree, "agree");
+        counter(meterRegistry, "category.local.fallback.agreement", disagree, "disagree");
+        counter(meterRegistry, "category.local.accuracy", correct, "correct");
+        counter(meterRegistry, "category.local.accuracy", incorrect, "incorrect");
+        Gauge.builder("category.local.examples", this, LocalCategoryModel::examples)
+                .register(meterRegistry);
+    }
+
+    private static void counter(MeterRegistry meterRegistry, String name, AtomicLong count, String result) {
+        FunctionCounter.builder(name, count, AtomicLong::get)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the snapshot and trains on the rows added since. Runs as part of the startup warm-up; until
+     * it has seen enough examples every description falls back to embeddings.
+     */
+    public void train() {
+        if (!enabled) return;
+        loadSnapshot();
+        int rows = trainFromTable();
+        log.info("Local category model trained on " + rows + " new rows, " + examples() + " examples in total");
+        if (rows > 0) {
+            saveSnapshot();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryLabeled(CategoryLabeledEvent event) {
+        if (event.isCorrection()) {
+            correct(event.previousDescription(), event.previousCategory(), event.description(), event.category());
+        } else {
+            learn(event.expenseId(), event.description(), event.category());
+        }
+    }
+
+    /**
+     * Returns the category name if the model is confident about the (normalized) description, otherwise null.
+     */
+    public String classify(String normalizedText) {
+        if (!enabled) return null;
+        NgramNaiveBayes.Prediction prediction;
+        lock.readLock().lock();
+        try {
+            if (model.examples() < minExamples) {
+                untrained.incrementAndGet();
+                return null;
+            }
+            prediction = model.predict(normalizedText);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (prediction == null || prediction.confidence() < threshold) {
+            fallback.incrementAndGet();
+            return null;
+        }
+        confident.incrementAndGet();
+        return prediction.category().name();
+    }
+
+    /**
+     * Compares the model's best guess for a description it was not confident about with the category
+     * the embedding path picked.
+     */
+    public void recordFallback(String normalizedText, String category) {
+        if (!enabled) return;
+        NgramNaiveBayes.Prediction prediction = predict(normalizedText);
+        if (prediction == null) return;
+        (prediction.category().name().equals(category) ? agree : disagree).incrementAndGet();
+    }
+
+    /**
+     * Learns a category a user chose for a new expense, after first scoring the model's prediction for it.
+     */
+    public void learn(Long id, String description, String category) {
+        Category label = categoryOf(category);
+        if (!enabled || label == null || description == null) return;
+        String text = EmbeddingCache.normalize(description);
+        NgramNaiveBayes.Prediction prediction = predict(text);
+        if (prediction != null) {
+            (prediction.category() == label ? correct : incorrect).incrementAndGet();
+        }
+        lock.writeLock().lock();
+        try {
+            model.learn(text, label);
+            if (id != null) {
+                trainedThroughId = Math.max(trainedThroughId, id);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an expense from its previous (description, category) to the one a user corrected it to.
+     */
+    public void correct(String oldDescription, String oldCategory, String newDescription, String newCategory) {
+        Category oldLabel = categoryOf(oldCategory);
+        Category newLabel = categoryOf(newCategory);
+        if (!enabled || newLabel == null || newDescription == null) return;
+        String newText = EmbeddingCache.normalize(newDescription);
+        lock.writeLock().lock();
+        try {
+            if (oldLabel != null && oldDescription != null) {
+                model.forget(EmbeddingCache.normalize(oldDescription), oldLabel);
+            }
+            model.learn(newText, newLabel);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int examples() {
+        lock.readLock().lock();
+        try {
+            return model.examples();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        if (enabled) {
+            saveSnapshot();
+        }
+    }
+
+    private NgramNaiveBayes.Prediction predict(String normalizedText) {
+        lock.readLock().lock();
+        try {
+            return model.predict(normalizedText);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int trainFromTable() {
+        long afterId;
+        lock.readLock().lock();
+        try {
+            afterId = trainedThroughId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Integer rows = readOnlyTransactionTemplate.execute(status -> {
+            int count = 0;
+            try (Stream<ExpenseRepository.LabeledDescription> stream =
+                         expenseRepository.streamLabeledAfter(afterId, CATEGORY_NAMES, CategorySource.USER)) {
+                for (ExpenseRepository.LabeledDescription row : (Iterable<ExpenseRepository.LabeledDescription>) stream::iterator) {
+                    String text = EmbeddingCache.normalize(row.getDescription());
+                    Category label = Category.valueOf(row.getCategory());
+                    lock.writeLock().lock();
+                    try {
+                        model.learn(text, label);
+                        trainedThroughId = Math.max(trainedThroughId, row.getId());
+                        dirty = true;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    count++;
+                }
+            }
+            return count;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private void loadSnapshot() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                log.info("Discarding outdated category model snapshot " + snapshotPath + ", retraining");
+                return;
+            }
+            long throughId = in.readLong();
+            NgramNaiveBayes loaded = NgramNaiveBayes.readFrom(in);
+            lock.writeLock().lock();
+            try {
+                model = loaded;
+                trainedThroughId = throughId;
+                dirty = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Loaded local category model snapshot from " + snapshotPath + " (" + loaded.examples()
+                    + " examples, through expense id " + throughId + ")");
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Ignoring unreadable category model snapshot " + snapshotPath, e);
+        }
+    }
+
+    private void saveSnapshot() {
+        if (snapshotPath == null) return;
+        lock.writeLock().lock();
+        try {
+            if (!dirty) return;
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "category-model", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(trainedThroughId);
+                model.writeTo(out);
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not write category model snapshot " + snapshotPath, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Category categoryOf(String category) {
+        if (category == null) return null;
+        try {
+            return Category.valueOf(category.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.lime.expenseai.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-month data version, bumped after every committed write that touches the month. Caches of
+ * derived data put the versions into their keys: read the version before reading the data, and an
+ * entry computed from data that changed meanwhile is simply never looked up again.
+ */
+@Component
+public class MonthDataVersions {
+
+    private final Map<YearMonth, Long> versions = new ConcurrentHashMap<>();
+
+    public long version(YearMonth month) {
+        return versions.getOrDefault(month, 0L);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesChanged(ExpensesChangedEvent event) {
+        for (YearMonth month : event.months()) {
+            versions.merge(month, 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.lime.expenseai.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.entity.MonthlyCategoryRollup;
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.lime.expenseai.repository.MonthlyCategoryRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Maintains the (month, category) -> sum/count/max rollup table. The add/remove methods must run
+ * inside the caller's transaction so the rollup commits or rolls back together with the expense row.
+ * <p>
+ * They change the rows with single SQL statements instead of a locked read-modify-write: a lock on a row
+ * that does not exist yet locks nothing, so two first writes for a new (month, category) would both insert
+ * and one would fail on the unique key, rolling back its expense. On PostgreSQL adding is an
+ * {@code insert ... on conflict do update}; other databases (H2 in tests) get the equivalent MERGE, which is
+ * not atomic there: a MERGE racing another transaction's first insert fails on the unique key once that
+ * commits, so it is rolled back to a savepoint and repeated, then finding the row.
+ */
+@Service
+public class MonthlyRollupService {
+    private static final Logger log = Logger.getLogger(MonthlyRollupService.class.getName());
+
+    private static final String UPSERT_POSTGRES = """
+            insert into monthly_category_rollup (rollup_month, category, total, expense_count, max_amount)
+            values (:month, :category, :total, :count, :maxAmount)
+            on conflict (rollup_month, category) do update set
+                total = monthly_category_rollup.total + excluded.total,
+                expense_count = monthly_category_rollup.expense_count + excluded.expense_count,
+                max_amount = greatest(monthly_category_rollup.max_amount, excluded.max_amount)""";
+    private static final String UPSERT_MERGE = """
+            merge into monthly_category_rollup r
+            using (select cast(? as varchar(7)) as rollup_month, cast(? as varchar(255)) as category,
+                          cast(? as double precision) as total, cast(? as bigint) as expense_count,
+                          cast(? as double precision) as max_amount) d
+            on r.rollup_month = d.rollup_month and r.category = d.category
+            when matched then update set
+                total = r.total + d.total,
+                expense_count = r.expense_count + d.expense_count,
+                max_amount = greatest(r.max_amount, d.max_amount)
+            when not matched then insert (rollup_month, category, total, expense_count, max_amount)
+                values (d.rollup_month, d.category, d.total, d.expense_count, d.max_amount)""";
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private final MonthlyCategoryRollupRepository rollupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final EntityManager entityManager;
+    private final boolean postgres;
+
+    public MonthlyRollupService(MonthlyCategoryRollupRepository rollupRepository,
+                                ExpenseRepository expenseRepository,
+                                EntityManager entityManager) {
+        this.rollupRepository = rollupRepository;
+        this.expenseRepository = expenseRepository;
+        this.entityManager = entityManager;
+        this.postgres = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(LocalDate date, String category, double amount) {
+        if (date == null) return;
+        upsert(YearMonth.from(date).toString(), categoryKey(category), amount, 1, amount);
+    }
+
+    /**
+     * Applies a batch of new expenses with one upsert per (month, category).
+     * Keys are processed in sorted order so concurrent batches lock rows in the same order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(List<Expense> expenses) {
+        Map<String, MonthlyCategoryRollup> deltas = new TreeMap<>();
+        for (Expense expense : expenses) {
+            if (expense.getDate() == null) continue;
+            String month = YearMonth.from(expense.getDate()).toString();
+            String category = categoryKey(expense.getCategory());
+            MonthlyCategoryRollup delta = deltas.computeIfAbsent(month + "|" + category,
+                    k -> new MonthlyCategoryRollup(null, month, category, 0, 0, Double.NEGATIVE_INFINITY));
+            delta.setTotal(delta.getTotal() + expense.getAmount());
+            delta.setCount(delta.getCount() + 1);
+            delta.setMaxAmount(Math.max(delta.getMaxAmount(), expense.getAmount()));
+        }
+        for (MonthlyCategoryRollup delta : deltas.values()) {
+            upsert(delta.getMonth(), delta.getCategory(), delta.getTotal(), delta.getCount(), delta.getMaxAmount());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(LocalDate date, String category, double amount) {
+        if (date == null) return;
+        YearMonth ym = YearMonth.from(date);
+        String month = ym.toString();
+        String key = categoryKey(category);
+        // the max below has to see the expense change of this transaction
+        entityManager.flush();
+        int updated = entityManager.createNativeQuery("""
+                        update monthly_category_rollup set total = total - :amount, expense_count = expense_count - 1
+                        where rollup_month = :month and category = :category""")
+                .setParameter("amount", amount)
+                .setParameter("month", month)
+                .setParameter("category", key)
+                .executeUpdate();
+        if (updated == 0) return;
+        entityManager.createNativeQuery("""
+                        delete from monthly_category_rollup
+                        where rollup_month = :month and category = :category and expense_count <= 0""")
+                .setParameter("month", month)
+                .setParameter("category", key)
+                .executeUpdate();
+        // the removed row may have been the maximum; the row itself is already gone or changed
+        entityManager.createNativeQuery("""
+                        update monthly_category_rollup set max_amount = coalesce(
+                            (select max(e.amount) from expense e
+                             where e.date between :startDate and :endDate
+                               and (e.category = :category or (:category = 'OTHER' and e.category is null))), 0)
+                        where rollup_month = :month and category = :category and max_amount <= :amount""")
+                .setParameter("startDate", ym.atDay(1))
+                .setParameter("endDate", ym.atEndOfMonth())
+                .setParameter("month", month)
+                .setParameter("category", key)
+                .setParameter("amount", amount)
+                .executeUpdate();
+    }
+
+    public List<MonthlyCategoryRollup> forMonth(YearMonth month) {
+        return rollupRepository.findByMonth(month.toString());
+    }
+
+    /**
+     * Recomputes the whole rollup table from the expense table.
+     */
+    @Transactional
+    public void rebuild() {
+        long start = System.nanoTime();
+        rollupRepository.deleteAllInBatch();
+        List<MonthlyCategoryRollup> rollups = expenseRepository.aggregateByMonthAndCategory().stream()
+                .map(row -> new MonthlyCategoryRollup(
+                        null,
+                        YearMonth.of(row.getYear(), row.getMonth()).toString(),
+                        row.getCategory(),
+                        row.getTotal(),
+                        row.getCount(),
+                        row.getMaxAmount()))
+                .toList();
+        rollupRepository.saveAll(rollups);
+        log.info("Rebuilt " + rollups.size() + " monthly rollups in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Rebuilds when the rollup table is empty but expenses exist, e.g. on first start after an upgrade.
+     */
+    @Transactional
+    public void rebuildIfMissing() {
+        if (rollupRepository.count() == 0 && expenseRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private void upsert(String month, String category, double total, long count, double maxAmount) {
+        if (!postgres) {
+            merge(month, category, total, count, maxAmount);
+            return;
+        }
+        entityManager.createNativeQuery(UPSERT_POSTGRES)
+                .setParameter("month", month)
+                .setParameter("category", category)
+                .setParameter("total", total)
+                .setParameter("count", count)
+                .setParameter("maxAmount", maxAmount)
+                .executeUpdate();
+    }
+
+    // plain JDBC: a failed native query would mark the caller's transaction rollback-only
+    private void merge(String month, String category, double total, long count, double maxAmount) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            for (int attempt = 1; ; attempt++) {
+                Savepoint savepoint = connection.setSavepoint();
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_MERGE)) {
+                    statement.setString(1, month);
+                    statement.setString(2, category);
+                    statement.setDouble(3, total);
+                    statement.setLong(4, count);
+                    statement.setDouble(5, maxAmount);
+                    statement.executeUpdate();
+                    connection.releaseSavepoint(savepoint);
+                    return;
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    if (!UNIQUE_VIOLATION.equals(e.getSQLState()) || attempt == MERGE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        });
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "OTHER" : category;
+    }
+}
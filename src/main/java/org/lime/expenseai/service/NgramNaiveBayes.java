@@ -0,0 +1,192 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.model.Category;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Multinomial naive Bayes over hashed character 3..5-grams and whole words of a normalized description.
+ * Features are hashed into a fixed number of buckets, so memory does not grow with the vocabulary and
+ * training is a handful of array increments. Examples can be forgotten again, which is how corrections
+ * move a description from one category to another.
+ * <p>
+ * Not thread-safe; {@link LocalCategoryModel} guards it with a read-write lock.
+ */
+final class NgramNaiveBayes {
+
+    static final int BUCKETS = 1 << 16;
+    private static final int MIN_GRAM = 3;
+    private static final int MAX_GRAM = 5;
+    private static final int WORD_SEED = 0x9747b28c;
+    private static final int SNAPSHOT_MAGIC = 0x45414e42; // "EANB"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final int[][] featureCounts = new int[CATEGORIES.length][BUCKETS];
+    private final long[] featureTotals = new long[CATEGORIES.length];
+    private final int[] examples = new int[CATEGORIES.length];
+
+    record Prediction(Category category, double confidence) {
+    }
+
+    void learn(String normalizedText, Category category) {
+        update(normalizedText, category, 1);
+    }
+
+    void forget(String normalizedText, Category category) {
+        update(normalizedText, category, -1);
+    }
+
+    int examples() {
+        return Arrays.stream(examples).sum();
+    }
+
+    /**
+     * Returns the most likely category and its posterior probability, or null before any example was learned.
+     */
+    Prediction predict(String normalizedText) {
+        int total = examples();
+        if (total == 0) {
+            return null;
+        }
+        int[] features = features(normalizedText);
+        double[] scores = new double[CATEGORIES.length];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            // Laplace smoothing for both the prior and the feature likelihoods
+            double score = Math.log((examples[c] + 1.0) / (total + CATEGORIES.length));
+            double denominator = Math.log(featureTotals[c] + (double) BUCKETS);
+            int[] counts = featureCounts[c];
+            for (int feature : features) {
+                score += Math.log(counts[feature] + 1.0) - denominator;
+            }
+            scores[c] = score;
+        }
+        int best = 0;
+        for (int c = 1; c < scores.length; c++) {
+            if (scores[c] > scores[best]) best = c;
+        }
+        double sum = 0;
+        for (double score : scores) {
+            sum += Math.exp(score - scores[best]);
+        }
+        return new Prediction(CATEGORIES[best], 1 / sum);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(BUCKETS);
+        out.writeInt(CATEGORIES.length);
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            out.writeUTF(CATEGORIES[c].name());
+            out.writeInt(examples[c]);
+            out.writeLong(featureTotals[c]);
+            int[] counts = featureCounts[c];
+            // sparse: most buckets of a category are empty
+            int nonZero = 0;
+            for (int count : counts) {
+                if (count != 0) nonZero++;
+            }
+            out.writeInt(nonZero);
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                if (counts[bucket] != 0) {
+                    out.writeInt(bucket);
+                    out.writeInt(counts[bucket]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo}; fails if it was written for other buckets or categories.
+     */
+    static NgramNaiveBayes readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a category model snapshot");
+        }
+        if (in.readInt() != BUCKETS || in.readInt() != CATEGORIES.length) {
+            throw new IOException("Snapshot was written for a different model layout");
+        }
+        NgramNaiveBayes model = new NgramNaiveBayes();
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            if (!CATEGORIES[c].name().equals(in.readUTF())) {
+                throw new IOException("Snapshot was written for different categories");
+            }
+            model.examples[c] = in.readInt();
+            model.featureTotals[c] = in.readLong();
+            int nonZero = in.readInt();
+            for (int i = 0; i < nonZero; i++) {
+                int bucket = in.readInt();
+                if (bucket < 0 || bucket >= BUCKETS) {
+                    throw new IOException("Corrupt snapshot");
+                }
+                model.featureCounts[c][bucket] = in.readInt();
+            }
+        }
+        return model;
+    }
+
+    private void update(String normalizedText, Category category, int delta) {
+        int c = category.ordinal();
+        if (delta < 0 && examples[c] == 0) {
+            return;
+        }
+        examples[c] += delta;
+        int[] counts = featureCounts[c];
+        for (int feature : features(normalizedText)) {
+            // a forgotten example may never have been learned; keep counts non-negative
+            if (delta < 0 && counts[feature] == 0) continue;
+            counts[feature] += delta;
+            featureTotals[c] += delta;
+        }
+    }
+
+    /**
+     * Bucket indexes of the character n-grams of " text " (so word boundaries are part of the grams)
+     * and of its words; duplicates are kept, as in a multinomial model.
+     */
+    static int[] features(String normalizedText) {
+        String text = " " + normalizedText + " ";
+        int length = text.length();
+        int grams = 0;
+        for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+            grams += Math.max(0, length - n + 1);
+        }
+        int[] features = new int[grams + length];
+        int size = 0;
+        for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+            for (int start = 0; start + n <= length; start++) {
+                features[size++] = bucket(hash(text, start, start + n, n));
+            }
+        }
+        int wordStart = -1;
+        for (int i = 0; i < length; i++) {
+            boolean letterOrDigit = Character.isLetterOrDigit(text.charAt(i));
+            if (letterOrDigit && wordStart < 0) {
+                wordStart = i;
+            } else if (!letterOrDigit && wordStart >= 0) {
+                features[size++] = bucket(hash(text, wordStart, i, WORD_SEED));
+                wordStart = -1;
+            }
+        }
+        return Arrays.copyOf(features, size);
+    }
+
+    // FNV-1a; String.hashCode would work too but spreads short grams poorly over the low bits
+    private static int hash(String text, int from, int to, int seed) {
+        int hash = 0x811c9dc5 ^ seed;
+        for (int i = from; i < to; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int bucket(int hash) {
+        return (hash ^ (hash >>> 16)) & (BUCKETS - 1);
+    }
+}
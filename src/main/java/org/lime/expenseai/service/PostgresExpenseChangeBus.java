@@ -0,0 +1,206 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ExpenseChangeBus} over PostgreSQL {@code NOTIFY}/{@code LISTEN}. A change is sent with
+ * {@code pg_notify} on the writing transaction's connection, so PostgreSQL delivers it exactly when that
+ * transaction commits. Every replica listens on a dedicated connection (outside the pool) from a virtual
+ * thread, ignores its own notifications and reconnects after {@code expenseai.change-bus.reconnect-delay}
+ * when the connection breaks; since notifications sent meanwhile are lost, a reconnect reports
+ * {@link Receiver#onChangesMissed()}.
+ * <p>
+ * Payload: {@code origin|2025-05,2025-06|17,18}. Expense ids are left out when they would not fit into
+ * PostgreSQL's 8000-byte payload limit.
+ * <p>
+ * Metrics: {@code expense.change_bus.messages{direction=sent|received}}, {@code expense.change_bus.reconnects}.
+ */
+@Component
+@ConditionalOnProperty(name = "expenseai.change-bus.type", havingValue = "postgres")
+public class PostgresExpenseChangeBus implements ExpenseChangeBus {
+
+    private static final Logger log = Logger.getLogger(PostgresExpenseChangeBus.class.getName());
+    static final int MAX_PAYLOAD_BYTES = 7999;
+    private static final int POLL_MILLIS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private final Duration reconnectDelay;
+    private final String origin = UUID.randomUUID().toString();
+
+    private volatile Receiver receiver;
+    private volatile boolean running;
+    private volatile Thread listener;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    public PostgresExpenseChangeBus(JdbcTemplate jdbcTemplate,
+                                    DataSourceProperties dataSourceProperties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${expenseai.change-bus.channel:expense_changes}") String channel,
+                                    @Value("${expenseai.change-bus.reconnect-delay:5s}") Duration reconnectDelay) {
+        // LISTEN takes an identifier, not a bind parameter
+        if (!channel.matches("[a-z_][a-z0-9_]{0,62}")) {
+            throw new IllegalArgumentException("Invalid change bus channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+        this.reconnectDelay = reconnectDelay;
+
+        FunctionCounter.builder("expense.change_bus.messages", sent, AtomicLong::get)
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        FunctionCounter.builder("expense.change_bus.messages", received, AtomicLong::get)
+                .tag("direction", "received")
+                .register(meterRegistry);
+        FunctionCounter.builder("expense.change_bus.reconnects", reconnects, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(ExpensesChangedEvent event) {
+        String payload = encode(origin, event);
+        jdbcTemplate.execute("select pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            return statement.execute();
+        });
+        sent.incrementAndGet();
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = Thread.ofVirtual().name("expense-change-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = listener;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for expense changes on channel " + channel);
+                if (connectedBefore) {
+                    reconnects.incrementAndGet();
+                    Receiver target = receiver;
+                    if (target != null) {
+                        target.onChangesMissed();
+                    }
+                }
+                connectedBefore = true;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        // a round trip notices a connection that died without the socket being closed
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("select 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) return;
+                log.log(Level.WARNING, "Expense change listener lost its connection, reconnecting in " + reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        ExpensesChangedEvent event = decode(origin, payload);
+        Receiver target = receiver;
+        if (event == null || target == null) return;
+        received.incrementAndGet();
+        try {
+            target.onRemoteChange(event);
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Could not apply expense change from another replica: " + payload, e);
+        }
+    }
+
+    static String encode(String origin, ExpensesChangedEvent event) {
+        String months = event.months().stream().map(YearMonth::toString).sorted().collect(Collectors.joining(","));
+        String ids = event.expenseIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        String payload = origin + "|" + months + "|" + ids;
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            payload = origin + "|" + months + "|";
+        }
+        return payload;
+    }
+
+    /**
+     * Returns the remote event of a payload, or null for one this replica sent or cannot read.
+     */
+    static ExpensesChangedEvent decode(String origin, String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 3 || parts[0].equals(origin)) {
+            return null;
+        }
+        try {
+            Set<YearMonth> months = parts[1].isEmpty() ? Set.of()
+                    : Arrays.stream(parts[1].split(",")).map(YearMonth::parse).collect(Collectors.toSet());
+            Set<Long> ids = parts[2].isEmpty() ? Set.of()
+                    : Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toSet());
+            return new ExpensesChangedEvent(ids, months, true);
+        } catch (RuntimeException e) {
+            log.warning("Ignoring malformed expense change notification: " + payload);
+            return null;
+        }
+    }
+}
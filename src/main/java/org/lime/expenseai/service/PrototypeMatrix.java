@@ -0,0 +1,169 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.model.Category;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Category prototype vectors stored row-major in one contiguous, pre-normalized float[].
+ * Since every row has unit length, the nearest prototype of a query is the row with the
+ * largest dot product, and the query itself never needs normalizing.
+ */
+public final class PrototypeMatrix {
+
+    private static final Logger log = Logger.getLogger(PrototypeMatrix.class.getName());
+
+    static final DotProduct DOT_PRODUCT = selectDotProduct();
+
+    private final int dimension;
+    private final float[] matrix;
+    private final Category[] labels;
+
+    private PrototypeMatrix(int dimension, float[] matrix, Category[] labels) {
+        this.dimension = dimension;
+        this.matrix = matrix;
+        this.labels = labels;
+    }
+
+    /**
+     * Builds the matrix from parallel lists of labels and raw (unnormalized) vectors.
+     * Zero vectors are skipped since they cannot be compared by angle.
+     */
+    public static PrototypeMatrix of(List<Category> labels, List<float[]> vectors) {
+        if (labels.size() != vectors.size()) {
+            throw new IllegalArgumentException("labels and vectors differ in size");
+        }
+        int dimension = vectors.isEmpty() ? 0 : vectors.get(0).length;
+        float[] matrix = new float[vectors.size() * dimension];
+        Category[] rowLabels = new Category[vectors.size()];
+        int rows = 0;
+        for (int i = 0; i < vectors.size(); i++) {
+            float[] vector = vectors.get(i);
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Prototype " + i + " has dimension " + vector.length + ", expected " + dimension);
+            }
+            double norm = Math.sqrt(DOT_PRODUCT.dot(vector, 0, vector, dimension));
+            if (norm == 0) continue;
+            int offset = rows * dimension;
+            for (int j = 0; j < dimension; j++) {
+                matrix[offset + j] = (float) (vector[j] / norm);
+            }
+            rowLabels[rows++] = labels.get(i);
+        }
+        return new PrototypeMatrix(dimension, trim(matrix, rows * dimension), trim(rowLabels, rows));
+    }
+
+    /**
+     * Returns the label of the prototype closest to the query, or null when there are no prototypes.
+     */
+    public Category nearest(float[] query) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Query has dimension " + query.length + ", expected " + dimension);
+        }
+        Category best = null;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int row = 0, offset = 0; row < labels.length; row++, offset += dimension) {
+            float score = DOT_PRODUCT.dot(matrix, offset, query, dimension);
+            if (score > bestScore) {
+                bestScore = score;
+                best = labels[row];
+            }
+        }
+        return best;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int rows() {
+        return labels.length;
+    }
+
+    /**
+     * Writes the normalized rows and their labels; {@link #readFrom} restores an identical matrix.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(dimension);
+        out.writeInt(labels.length);
+        for (Category label : labels) {
+            out.writeUTF(label.name());
+        }
+        for (float value : matrix) {
+            out.writeFloat(value);
+        }
+    }
+
+    public static PrototypeMatrix readFrom(DataInputStream in) throws IOException {
+        int dimension = in.readInt();
+        int rows = in.readInt();
+        if (dimension < 0 || rows < 0) {
+            throw new IOException("Corrupt prototype matrix");
+        }
+        Category[] labels = new Category[rows];
+        try {
+            for (int row = 0; row < rows; row++) {
+                labels[row] = Category.valueOf(in.readUTF());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown category in prototype matrix", e);
+        }
+        float[] matrix = new float[rows * dimension];
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = in.readFloat();
+        }
+        return new PrototypeMatrix(dimension, matrix, labels);
+    }
+
+    private static float[] trim(float[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static Category[] trim(Category[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static DotProduct selectDotProduct() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded reflectively so the Vector API classes are only linked when the module is present
+                DotProduct vectorized = (DotProduct) Class.forName("org.lime.expenseai.service.VectorizedDotProduct")
+                        .getDeclaredConstructor()
+                        .newInstance();
+                log.info("Using jdk.incubator.vector for category scoring");
+                return vectorized;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warning("Vector API unavailable, falling back to scalar scoring: " + e);
+            }
+        }
+        return new ScalarDotProduct();
+    }
+
+    interface DotProduct {
+        float dot(float[] a, int aOffset, float[] b, int length);
+    }
+
+    static final class ScalarDotProduct implements DotProduct {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int length) {
+            // four independent accumulators let the JIT overlap the multiply-adds
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (int bound = length & ~3; i < bound; i += 4) {
+                s0 += a[aOffset + i] * b[i];
+                s1 += a[aOffset + i + 1] * b[i + 1];
+                s2 += a[aOffset + i + 2] * b[i + 2];
+                s3 += a[aOffset + i + 3] * b[i + 3];
+            }
+            for (; i < length; i++) {
+                s0 += a[aOffset + i] * b[i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+}
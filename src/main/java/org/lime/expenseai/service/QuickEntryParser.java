@@ -0,0 +1,223 @@
+package org.lime.expenseai.service;
+
+import org.lime.expenseai.model.Category;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based extractor for single-expense chat messages such as
+ * "In July 25th, 2025, I bought a coffee, cost 6.66 euros" or "yesterday, taxi 12.40 EUR".
+ * It only answers when the message unambiguously contains one date, one amount with a currency or
+ * price word, and a short description; everything else (questions, corrections, deletions, summaries,
+ * several expenses in one message) is left to the model.
+ */
+final class QuickEntryParser {
+
+    record QuickEntry(LocalDate date, double amount, String currency, String description, String category) {
+    }
+
+    private static final int MAX_DESCRIPTION_WORDS = 6;
+
+    // anything that is not a plain "I spent X on Y" goes to the model
+    private static final Pattern OTHER_INTENT = Pattern.compile(
+            "\\?|\\b(delete|remove|update|correct|correction|change|edit|fix|wrong|list|show|summar\\w*|total|totals"
+                    + "|how|what|which|when|insight\\w*|compare|undo|and then|also|each|per|every)\\b");
+
+    private static final String MONTHS =
+            "(jan(?:uary)?|feb(?:ruary)?|mar(?:ch)?|apr(?:il)?|may|june?|july?|aug(?:ust)?|sep(?:t(?:ember)?)?|oct(?:ober)?|nov(?:ember)?|dec(?:ember)?)";
+    private static final String DAY = "(\\d{1,2})(?:st|nd|rd|th)?";
+    private static final String YEAR = "(?:,?\\s*(\\d{4}))?";
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{1,2})-(\\d{1,2})\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile("\\b" + MONTHS + "\\.?\\s+" + DAY + "\\b" + YEAR);
+    private static final Pattern DAY_MONTH = Pattern.compile("\\b" + DAY + "\\s+(?:of\\s+)?" + MONTHS + "\\b" + YEAR);
+    private static final Pattern TODAY = Pattern.compile("\\btoday\\b");
+    private static final Pattern YESTERDAY = Pattern.compile("\\byesterday\\b");
+    private static final Pattern DAYS_AGO = Pattern.compile("\\b(\\d{1,2})\\s+days?\\s+ago\\b");
+    private static final Pattern WEEKDAY = Pattern.compile(
+            "\\b(?:last|on)\\s+(monday|tuesday|wednesday|thursday|friday|saturday|sunday)\\b");
+
+    private static final Pattern AMOUNT = Pattern.compile(
+            "([\u20ac$\u00a3\u00a5])?\\s*(?<![\\d.,\\p{L}-])(\\d+(?:[.,]\\d{1,2})?)(?![\\d.,]*\\d)\\s*(\u20ac|\\$|\u00a3|\u00a5|eur\\b|euros?\\b|usd\\b|dollars?\\b|gbp\\b|pounds?\\b|jpy\\b|yen\\b)?");
+    private static final Pattern PRICE_WORD = Pattern.compile("\\b(cost|costs|costing|paid|spent|for|price|was)\\s*$");
+
+    private static final Map<String, String> CURRENCIES = Map.ofEntries(
+            Map.entry("\u20ac", "EUR"), Map.entry("eur", "EUR"), Map.entry("euro", "EUR"), Map.entry("euros", "EUR"),
+            Map.entry("$", "USD"), Map.entry("usd", "USD"), Map.entry("dollar", "USD"), Map.entry("dollars", "USD"),
+            Map.entry("\u00a3", "GBP"), Map.entry("gbp", "GBP"), Map.entry("pound", "GBP"), Map.entry("pounds", "GBP"),
+            Map.entry("\u00a5", "JPY"), Map.entry("jpy", "JPY"), Map.entry("yen", "JPY"));
+
+    // stripped from either end of the description, kept in the middle ("dinner for two")
+    private static final Set<String> FILLER = Set.of(
+            "in", "on", "at", "i", "i've", "ive", "we", "just", "bought", "buy", "got", "had", "paid", "pay", "spent",
+            "spend", "a", "an", "some", "cost", "costs", "costing", "for", "was", "it", "that", "which", "price");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}'&-]+");
+
+    private QuickEntryParser() {
+    }
+
+    static Optional<QuickEntry> parse(String message, LocalDate today) {
+        if (message == null || message.isBlank() || message.length() > 200) {
+            return Optional.empty();
+        }
+        String source = message.trim();
+        String text = source.toLowerCase(Locale.ROOT);
+        if (text.length() != source.length()) {
+            return Optional.empty();
+        }
+        if (OTHER_INTENT.matcher(text).find()) {
+            return Optional.empty();
+        }
+
+        List<DateMatch> dates = findDates(text, today);
+        if (dates.size() != 1 || dates.get(0).date() == null || dates.get(0).date().isAfter(today)) {
+            return Optional.empty();
+        }
+        DateMatch dateMatch = dates.get(0);
+        String withoutDate = blank(text, dateMatch.start(), dateMatch.end());
+
+        Matcher amounts = AMOUNT.matcher(withoutDate);
+        List<MatchResult> found = new ArrayList<>();
+        while (amounts.find()) {
+            found.add(new MatchResult(amounts.start(), amounts.end(), amounts.group(1), amounts.group(2), amounts.group(3)));
+        }
+        if (found.size() != 1) {
+            return Optional.empty();
+        }
+        MatchResult amount = found.get(0);
+        String symbol = amount.prefix() != null ? amount.prefix() : amount.suffix();
+        boolean priced = symbol != null || PRICE_WORD.matcher(withoutDate.substring(0, amount.start())).find();
+        double value = Double.parseDouble(amount.number().replace(',', '.'));
+        if (!priced || value <= 0) {
+            return Optional.empty();
+        }
+        String currency = symbol == null ? null : CURRENCIES.get(symbol.trim());
+
+        String description = describe(blank(withoutDate, amount.start(), amount.end()), source);
+        if (description == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new QuickEntry(dateMatch.date(), value, currency, description, categoryOf(description)));
+    }
+
+    private record DateMatch(int start, int end, LocalDate date) {
+    }
+
+    private record MatchResult(int start, int end, String prefix, String number, String suffix) {
+    }
+
+    private static List<DateMatch> findDates(String text, LocalDate today) {
+        List<DateMatch> dates = new ArrayList<>();
+        Matcher m = ISO_DATE.matcher(text);
+        while (m.find()) {
+            addDate(dates, m, () -> LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3))));
+        }
+        Matcher md = MONTH_DAY.matcher(text);
+        while (md.find()) {
+            addDate(dates, md, () -> withYear(month(md.group(1)), Integer.parseInt(md.group(2)), md.group(3), today));
+        }
+        Matcher dm = DAY_MONTH.matcher(text);
+        while (dm.find()) {
+            addDate(dates, dm, () -> withYear(month(dm.group(2)), Integer.parseInt(dm.group(1)), dm.group(3), today));
+        }
+        Matcher t = TODAY.matcher(text);
+        while (t.find()) {
+            addDate(dates, t, () -> today);
+        }
+        Matcher y = YESTERDAY.matcher(text);
+        while (y.find()) {
+            addDate(dates, y, () -> today.minusDays(1));
+        }
+        Matcher ago = DAYS_AGO.matcher(text);
+        while (ago.find()) {
+            addDate(dates, ago, () -> today.minusDays(Integer.parseInt(ago.group(1))));
+        }
+        Matcher w = WEEKDAY.matcher(text);
+        while (w.find()) {
+            DayOfWeek day = DayOfWeek.valueOf(w.group(1).toUpperCase(Locale.ROOT));
+            addDate(dates, w, () -> today.with(TemporalAdjusters.previous(day)));
+        }
+        return dates;
+    }
+
+    private static void addDate(List<DateMatch> dates, Matcher matcher, DateSupplier date) {
+        for (DateMatch existing : dates) {
+            if (matcher.start() < existing.end() && existing.start() < matcher.end()) return;
+        }
+        try {
+            dates.add(new DateMatch(matcher.start(), matcher.end(), date.get()));
+        } catch (DateTimeException e) {
+            // "February 30th": recorded without a date so the message goes to the model
+            dates.add(new DateMatch(matcher.start(), matcher.end(), null));
+        }
+    }
+
+    @FunctionalInterface
+    private interface DateSupplier {
+        LocalDate get();
+    }
+
+    // a date without a year is the most recent such date, never one in the future
+    private static LocalDate withYear(Month month, int day, String year, LocalDate today) {
+        if (year != null) {
+            return LocalDate.of(Integer.parseInt(year), month, day);
+        }
+        LocalDate date = LocalDate.of(today.getYear(), month, day);
+        return date.isAfter(today) ? date.minusYears(1) : date;
+    }
+
+    private static Month month(String name) {
+        String prefix = name.substring(0, 3);
+        for (Month month : Month.values()) {
+            if (month.name().toLowerCase(Locale.ROOT).startsWith(prefix)) return month;
+        }
+        throw new DateTimeException("Unknown month " + name);
+    }
+
+    private static String blank(String text, int start, int end) {
+        return text.substring(0, start) + " ".repeat(end - start) + text.substring(end);
+    }
+
+    /**
+     * Keeps the words left once the date, amount and filler are removed, in the user's original casing.
+     */
+    private static String describe(String remaining, String original) {
+        List<String> lower = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        Matcher word = WORD.matcher(remaining);
+        while (word.find()) {
+            if (word.group().chars().noneMatch(Character::isLetter)) return null; // a stray number: ambiguous
+            lower.add(word.group());
+            words.add(original.substring(word.start(), word.end()));
+        }
+        int from = 0;
+        int to = words.size();
+        while (from < to && FILLER.contains(lower.get(from))) from++;
+        while (to > from && FILLER.contains(lower.get(to - 1))) to--;
+        if (from == to || to - from > MAX_DESCRIPTION_WORDS) {
+            return null;
+        }
+        return String.join(" ", words.subList(from, to));
+    }
+
+    private static String categoryOf(String description) {
+        for (String word : description.toUpperCase(Locale.ROOT).split(" ")) {
+            for (Category category : Category.values()) {
+                if (category.name().equals(word)) return category.name();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the call on its own thread
+ * (keeping its span and bulkhead permit), later callers wait for the same in-flight future. Nothing is
+ * kept once the call completes; caching the result is up to the caller. Streams are coalesced the same
+ * way by {@link #executeStream}, separately from blocking calls.
+ * <p>
+ * Metrics: {@code singleflight.calls{name,result=executed|collapsed}}.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Flux<?>> streamsInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    SingleFlight(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("singleflight.calls", executed, AtomicLong::get)
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("singleflight.calls", collapsed, AtomicLong::get)
+                .tag("name", name)
+                .tag("result", "collapsed")
+                .description("Calls that joined an identical call already in flight")
+                .register(meterRegistry);
+    }
+
+    V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            return await(existing);
+        }
+        executed.incrementAndGet();
+        try {
+            V value = call.get();
+            own.complete(value);
+            return value;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Subscribes to the stream in flight for the key, or to a new one from {@code call}. Later subscribers
+     * replay what the stream has emitted so far, then follow it live; the stream is cancelled once all of
+     * its subscribers have cancelled.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Flux<T> executeStream(K key, Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            Flux<T> existing = (Flux<T>) streamsInFlight.get(key);
+            if (existing != null) {
+                collapsed.incrementAndGet();
+                return existing;
+            }
+            AtomicReference<Flux<T>> own = new AtomicReference<>();
+            own.set(Flux.defer(call)
+                    .doFinally(signal -> streamsInFlight.remove(key, own.get()))
+                    .replay()
+                    .refCount());
+            existing = (Flux<T>) streamsInFlight.putIfAbsent(key, own.get());
+            if (existing != null) {
+                collapsed.incrementAndGet();
+                return existing;
+            }
+            executed.incrementAndGet();
+            return own.get();
+        });
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // rethrow what the first caller got, e.g. LlmBusyException
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
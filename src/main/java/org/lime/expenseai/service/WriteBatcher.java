@@ -0,0 +1,173 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Group commit: callers of {@link #submit} queue their item and wait, while one flusher thread takes
+ * everything queued (up to {@code maxBatchSize}) and writes it with a single call of {@code flush}, which
+ * returns one result per item in the same order. Calls arriving while a flush runs form the next batch, so
+ * a lone caller is flushed at once; {@code maxWait} additionally holds a batch open for late arrivals.
+ * <p>
+ * When a batch fails its items are flushed again one by one, so only the item that caused the failure sees
+ * it; {@code flush} must therefore be safe to repeat for a failed batch (e.g. run in a rolled-back
+ * transaction). The flush runs on the flusher thread, outside the callers' spans and transactions.
+ * <p>
+ * Metrics: {@code writebatch.size{name}}, {@code writebatch.queued{name}},
+ * {@code writebatch.retries{name}} (batches retried item by item).
+ */
+final class WriteBatcher<T, R> implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(WriteBatcher.class.getName());
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Function<List<T>, List<R>> flush;
+    private final LinkedBlockingQueue<Pending<T, R>> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+    private final AtomicLong retries = new AtomicLong();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    WriteBatcher(String name, int maxBatchSize, Duration maxWait, Function<List<T>, List<R>> flush,
+                 MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.flush = flush;
+        this.batchSizes = DistributionSummary.builder("writebatch.size")
+                .tag("name", name)
+                .description("Items written per flush")
+                .register(meterRegistry);
+        FunctionCounter.builder("writebatch.retries", retries, AtomicLong::get)
+                .tag("name", name)
+                .description("Failed batches flushed again item by item")
+                .register(meterRegistry);
+        Gauge.builder("writebatch.queued", queue, LinkedBlockingQueue::size)
+                .tag("name", name)
+                .register(meterRegistry);
+        this.flusher = Thread.ofVirtual().name(name + "-flusher").start(this::run);
+    }
+
+    /**
+     * Queues the item and blocks until the batch holding it has been flushed; rethrows what its flush threw.
+     */
+    R submit(T item) {
+        Pending<T, R> pending = new Pending<>(item, new CompletableFuture<>());
+        queue.add(pending);
+        // after close() the flusher may already have drained the queue for the last time
+        if (closed && queue.remove(pending)) {
+            return flushOne(item);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    // callers waiting for the next flush
+    int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Flushes what is queued and stops the flusher; later submits flush on the caller's thread.
+     */
+    @Override
+    public void close() {
+        // no interrupt: it would close the JDBC socket of a flush in progress on a virtual thread
+        closed = true;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            // reading closed before the queue: a submit that still sees closed == false is flushed here
+            while (!closed || !queue.isEmpty()) {
+                Pending<T, R> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize && maxWaitNanos > 0) {
+                    Pending<T, R> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                flushBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // later submits flush on their own threads
+            closed = true;
+            log.warning("Write batcher flusher interrupted, flushing " + (batch.size() + queue.size()) + " queued items");
+            do {
+                flushBatch(batch);
+                batch.clear();
+            } while (queue.drainTo(batch, maxBatchSize) > 0);
+        }
+    }
+
+    private void flushBatch(List<Pending<T, R>> batch) {
+        if (batch.isEmpty()) return;
+        batchSizes.record(batch.size());
+        List<R> results;
+        try {
+            results = flush.apply(batch.stream().map(Pending::item).toList());
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Flush returned " + results.size() + " results for " + batch.size() + " items");
+            }
+        } catch (RuntimeException | Error e) {
+            if (batch.size() == 1) {
+                batch.getFirst().result().completeExceptionally(e);
+                return;
+            }
+            retries.incrementAndGet();
+            log.log(Level.FINE, "Batch of " + batch.size() + " failed, flushing its items one by one", e);
+            for (Pending<T, R> pending : batch) {
+                try {
+                    pending.result().complete(flushOne(pending.item()));
+                } catch (RuntimeException | Error itemFailure) {
+                    pending.result().completeExceptionally(itemFailure);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    private R flushOne(T item) {
+        return flush.apply(List.of(item)).getFirst();
+    }
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result) {
+    }
+}
@@ -1,17 +1,19 @@
 package org.lime.expenseai.tool;
 
-import org.lime.expenseai.model.Category;
 import org.lime.expenseai.model.ExpenseDto;
 import org.lime.expenseai.model.MonthlyTotalsResult;
+import org.lime.expenseai.observability.LlmInstrumentation;
 import org.lime.expenseai.service.CategoryClassifier;
+import org.lime.expenseai.service.ChatTurn;
 import org.lime.expenseai.service.ExpenseService;
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 @Component
@@ -21,84 +23,100 @@ public class ExpenseTools {
 
     private final ExpenseService expenseService;
     private final CategoryClassifier categoryClassifier;
+    private final LlmInstrumentation llm;
 
-    public ExpenseTools(ExpenseService expenseService, CategoryClassifier categoryClassifier) {
+    public ExpenseTools(ExpenseService expenseService, CategoryClassifier categoryClassifier, LlmInstrumentation llm) {
         this.expenseService = expenseService;
         this.categoryClassifier = categoryClassifier;
+        this.llm = llm;
     }
 
     @Tool(description = "Add an expense item with date, category, amount, and description")
-    public ExpenseDto addExpense(LocalDate date, String category, double amount, String description) {
-        String normalizedCategory = normalizeCategory(category, description);
-        ExpenseDto dto = new ExpenseDto(null, date, normalizedCategory, amount, description);
-        expenseService.addExpense(dto);
-        log.info("Tool addExpense called: " + dto);
-        return dto;
+    public ExpenseDto addExpense(LocalDate date, String category, double amount, String description,
+                                 ToolContext toolContext) {
+        return llm.tool("addExpense", () -> write(toolContext, () -> {
+            ExpenseDto dto = expenseService.addExpense(new ExpenseDto(null, date, category, amount, description));
+            log.info("Tool addExpense called: " + dto);
+            return dto;
+        }), date, category, amount, description);
     }
 
     @Tool(description = "Delete an expense item by id")
-    public void deleteExpense(Long id) {
-        log.info("Tool deleteExpense called: " + id);
-        expenseService.deleteExpense(id);
+    public void deleteExpense(Long id, ToolContext toolContext) {
+        llm.tool("deleteExpense", () -> write(toolContext, () -> {
+            log.info("Tool deleteExpense called: " + id);
+            expenseService.deleteExpense(id);
+            return null;
+        }), id);
     }
 
     @Tool(description = "List expenses for a specific date (yyyy-MM-dd)")
-    public List<ExpenseDto> getExpensesByDate(String date) {
-        log.info("Tool getExpensesByDate called: " + date);
-        return expenseService.getByDate(LocalDate.parse(date));
+    public List<ExpenseDto> getExpensesByDate(String date, ToolContext toolContext) {
+        return llm.tool("getExpensesByDate", () -> read(toolContext, () -> {
+            log.info("Tool getExpensesByDate called: " + date);
+            return expenseService.getByDate(LocalDate.parse(date));
+        }), date);
     }
 
     @Tool(description = "List expenses for a specific month (yyyy-MM)")
-    public List<ExpenseDto> getExpensesByMonth(String yearMonth) {
-        log.info("Tool getExpensesByMonth called: " + yearMonth);
-        return expenseService.getByMonth(YearMonth.parse(yearMonth));
+    public List<ExpenseDto> getExpensesByMonth(String yearMonth, ToolContext toolContext) {
+        return llm.tool("getExpensesByMonth", () -> read(toolContext, () -> {
+            log.info("Tool getExpensesByMonth called: " + yearMonth);
+            return expenseService.getByMonth(YearMonth.parse(yearMonth));
+        }), yearMonth);
     }
 
     @Tool(description = "Correct an expense by id")
-    public ExpenseDto updateExpense(Long id, LocalDate date, String category, Double amount, String description) {
-        String normalizedCategory = (category == null) ? null : normalizeCategory(category, description);
-        return expenseService.updateExpensePartial(id, date, normalizedCategory, amount, description);
+    public ExpenseDto updateExpense(Long id, LocalDate date, String category, Double amount, String description,
+                                    ToolContext toolContext) {
+        return llm.tool("updateExpense",
+                () -> write(toolContext, () -> expenseService.updateExpensePartial(id, date, category, amount, description)),
+                id, date, category, amount, description);
     }
 
     @Tool(description = "Correct an expense by matching date and description (uses the most recent match if multiple)")
-    public ExpenseDto updateExpenseByDateAndDescription(LocalDate date, String description, Double amount, String category) {
-        String normalizedCategory = (category == null) ? null : normalizeCategory(category, description);
-        ExpenseDto updated = expenseService.updateExpenseByDateAndDescription(date, description, amount, normalizedCategory);
-        log.info("Tool updateExpenseByDateAndDescription called: " + updated);
-        return updated;
+    public ExpenseDto updateExpenseByDateAndDescription(LocalDate date, String description, Double amount, String category,
+                                                        ToolContext toolContext) {
+        return llm.tool("updateExpenseByDateAndDescription", () -> write(toolContext, () -> {
+            ExpenseDto updated = expenseService.updateExpenseByDateAndDescription(date, description, amount, category);
+            log.info("Tool updateExpenseByDateAndDescription called: " + updated);
+            return updated;
+        }), date, description, amount, category);
     }
 
     @Tool(description = "Get monthly totals by category for a specific month (yyyy-MM)")
-    public MonthlyTotalsResult getMonthlyTotals(String yearMonth) {
-        YearMonth ym = YearMonth.parse(yearMonth);
-        Map<String, Double> totals = expenseService.getByMonth(ym).stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        exp -> normalizeCategory(exp.category(), exp.description()),
-                        java.util.stream.Collectors.summingDouble(ExpenseDto::amount)
-                ));
-        double totalAmount = totals.values().stream().mapToDouble(Double::doubleValue).sum();
-        MonthlyTotalsResult result = new MonthlyTotalsResult(totals, totalAmount);
-        log.info("Tool getMonthlyTotals called: " + yearMonth + " -> " + result);
-        return result;
+    public MonthlyTotalsResult getMonthlyTotals(String yearMonth, ToolContext toolContext) {
+        return llm.tool("getMonthlyTotals", () -> read(toolContext, () -> {
+            MonthlyTotalsResult result = expenseService.getMonthlyTotals(YearMonth.parse(yearMonth));
+            log.info("Tool getMonthlyTotals called: " + yearMonth + " -> " + result);
+            return result;
+        }), yearMonth);
     }
 
     @Tool(description = "Classify a category using embeddings when the category is ambiguous or unknown")
-    public String classifyCategoryByEmbedding(String description) {
-        String text = (description == null) ? "" : description.trim();
-        String category = categoryClassifier.classify(text);
-        log.info("Tool classifyCategoryByEmbedding called: " + text + " -> " + category);
-        return category;
+    public String classifyCategoryByEmbedding(String description, ToolContext toolContext) {
+        return llm.tool("classifyCategoryByEmbedding", () -> call(toolContext, () -> {
+            String text = (description == null) ? "" : description.trim();
+            String category = categoryClassifier.classify(text);
+            log.info("Tool classifyCategoryByEmbedding called: " + text + " -> " + category);
+            return category;
+        }), description);
     }
 
-    private String normalizeCategory(String category, String description) {
-        // try enum first
-        if (category != null) {
-            try {
-                return Category.valueOf(category.toUpperCase()).name();
-            } catch (IllegalArgumentException ignored) {
-                // fall back
-            }
-        }
-        return categoryClassifier.classify(description != null ? description : category);
+    // tool calls share the chat's bulkhead permit, and reads after a write in the same chat turn go to the
+    // primary, see ChatTurn
+    private static <T> T read(ToolContext toolContext, Supplier<T> read) {
+        ChatTurn turn = ChatTurn.of(toolContext);
+        return turn == null ? read.get() : turn.read(read);
+    }
+
+    private static <T> T write(ToolContext toolContext, Supplier<T> write) {
+        ChatTurn turn = ChatTurn.of(toolContext);
+        return turn == null ? write.get() : turn.write(write);
+    }
+
+    private static <T> T call(ToolContext toolContext, Supplier<T> work) {
+        ChatTurn turn = ChatTurn.of(toolContext);
+        return turn == null ? work.get() : turn.call(work);
     }
 }
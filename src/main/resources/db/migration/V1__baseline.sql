@@ -0,0 +1,34 @@
+-- Schema as ddl-auto=update created it. Existing databases are baselined at version 0
+-- (spring.flyway.baseline-on-migrate), so this still runs there and only adds what is missing, e.g. the
+-- sequence and tables of databases created while Expense used IDENTITY ids.
+
+create sequence if not exists expense_seq start with 1 increment by 50;
+
+create table if not exists expense (
+    id          bigint           not null,
+    amount      float(53)        not null,
+    category    varchar(255),
+    date        date,
+    description varchar(255),
+    primary key (id)
+);
+
+create table if not exists monthly_category_rollup (
+    id            bigint generated by default as identity,
+    category      varchar(255) not null,
+    expense_count bigint       not null,
+    max_amount    float(53)    not null,
+    rollup_month  varchar(7)   not null,
+    total         float(53)    not null,
+    primary key (id),
+    unique (rollup_month, category)
+);
+
+create table if not exists embedding_cache_entry (
+    cache_key  varchar(64)   not null,
+    created_at timestamp(6) with time zone,
+    model      varchar(255),
+    text       varchar(2048),
+    vector     bytea         not null,
+    primary key (cache_key)
+);
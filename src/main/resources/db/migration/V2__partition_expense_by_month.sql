@@ -0,0 +1,79 @@
+-- Range-partitions expense by month and adds the indexes the read paths need:
+--   (date, category) include (amount)  day/month lists and per-category sums, index-only
+--   (date, id)                          keyset pagination (order by date desc, id desc)
+--   lower(description)                  corrections matched by date and case-insensitive description
+-- Every query filters on date, so the planner prunes to the partitions of the requested months.
+
+do $$
+begin
+    if exists (select 1 from expense where date is null) then
+        raise exception 'expense has rows without a date; set their date before migrating, they cannot be placed in a month partition';
+    end if;
+end
+$$;
+
+alter table expense rename to expense_unpartitioned;
+alter table expense_unpartitioned rename constraint expense_pkey to expense_unpartitioned_pkey;
+
+-- the primary key of a partitioned table has to include the partition key
+create table expense (
+    id          bigint           not null,
+    amount      float(53)        not null,
+    category    varchar(255),
+    date        date             not null,
+    description varchar(255),
+    primary key (id, date)
+) partition by range (date);
+
+-- rows of months that have no partition yet
+create table expense_default partition of expense default;
+
+-- Creates the missing monthly partitions expense_yyyy_mm from first_month through last_month and moves
+-- their rows out of the default partition. Called here and at every application start, possibly by several
+-- replicas at once, so calls are serialized with a transaction-level advisory lock.
+create or replace function ensure_expense_partitions(first_month date, last_month date) returns integer
+language plpgsql as $$
+declare
+    month_start    date := date_trunc('month', first_month)::date;
+    month_end      date;
+    partition_name text;
+    created        integer := 0;
+begin
+    perform pg_advisory_xact_lock(hashtext('ensure_expense_partitions'));
+    while month_start <= last_month loop
+        month_end := (month_start + interval '1 month')::date;
+        partition_name := 'expense_' || to_char(month_start, 'YYYY_MM');
+        if not exists (select 1 from pg_inherits
+                       where inhparent = 'expense'::regclass and inhrelid = to_regclass(partition_name)) then
+            execute format('create table if not exists %I (like expense including defaults including constraints)', partition_name);
+            execute format('with moved as (delete from expense_default where date >= %L and date < %L returning *) '
+                           || 'insert into %I select * from moved', month_start, month_end, partition_name);
+            execute format('alter table expense attach partition %I for values from (%L) to (%L)',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        end if;
+        month_start := month_end;
+    end loop;
+    return created;
+end
+$$;
+
+-- one partition per month of the existing data (at most five years back, older rows stay in the default
+-- partition) through a year ahead
+select ensure_expense_partitions(
+    greatest(coalesce((select min(date) from expense_unpartitioned), current_date), (current_date - interval '5 years')::date),
+    (greatest(coalesce((select max(date) from expense_unpartitioned), current_date), current_date) + interval '12 months')::date);
+
+insert into expense (id, amount, category, date, description)
+select id, amount, category, date, description from expense_unpartitioned;
+
+drop table expense_unpartitioned;
+
+create index expense_date_category_idx on expense (date, category) include (amount);
+create index expense_date_id_idx on expense (date, id);
+create index expense_lower_description_idx on expense (lower(description));
+
+-- replaces the startup check that moved the sequence past ids from the IDENTITY days
+select setval('expense_seq', greatest((select coalesce(max(id), 0) from expense), (select last_value from expense_seq)));
+
+analyze expense;
@@ -0,0 +1,4 @@
+-- Who picked each expense's category: USER or CLASSIFIER. Rows written before this migration stay null
+-- (unknown) and are not used to train the local category model.
+
+alter table expense add column if not exists category_source varchar(16);
@@ -0,0 +1,3 @@
+-- The embedding cache is pruned to its newest rows by created_at
+
+create index if not exists embedding_cache_entry_created_at_idx on embedding_cache_entry (created_at);
@@ -0,0 +1,106 @@
+package org.lime.expenseai.config;
+
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.service.ChatTurn;
+import org.lime.expenseai.service.ExpenseService;
+import org.lime.expenseai.service.InsightService;
+import org.lime.expenseai.service.LlmBulkhead;
+import org.lime.expenseai.tool.ExpenseTools;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two separate H2 databases stand in for the primary and a read replica that never catches up, so every
+ * read shows which of them it went to.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "expenseai.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'",
+        "expenseai.datasource.replica.username=sa",
+        "expenseai.datasource.replica.password=",
+        "expenseai.warmup.models=false",
+        "expenseai.category-model.enabled=false"
+})
+class ReadReplicaRoutingTest {
+
+    private static final YearMonth JUNE = YearMonth.of(2025, 6);
+    private static final YearMonth AUGUST = YearMonth.of(2025, 8);
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseTools tools;
+
+    @Autowired
+    private LlmBulkhead bulkhead;
+
+    @Autowired
+    private InsightService insightService;
+
+    // echoes the prompt, so the insight shows which rows the summary was built from
+    @MockitoBean
+    private ChatModel chatModel;
+
+    @Test
+    void readOnlyServiceMethodsReadFromTheReplica() {
+        assertEquals(List.of("replica row"), descriptions(expenseService.getByMonth(JUNE)));
+
+        expenseService.addExpense(new ExpenseDto(null, JUNE.atDay(21), "FOOD", 9, "lunch"));
+
+        assertFalse(descriptions(expenseService.getByMonth(JUNE)).contains("lunch"));
+        assertTrue(descriptions(ReadRouting.onPrimary(() -> expenseService.getByMonth(JUNE))).contains("lunch"));
+    }
+
+    @Test
+    void toolReadsAfterAWriteInTheSameChatTurnGoToThePrimary() {
+        bulkhead.callWithPermit(permit -> {
+            ToolContext turn = new ToolContext(new ChatTurn(permit).toolContext());
+            assertEquals(List.of("replica row"), descriptions(tools.getExpensesByMonth(JUNE.toString(), turn)));
+
+            tools.addExpense(JUNE.atDay(22), "FOOD", 4, "coffee", turn);
+
+            assertTrue(descriptions(tools.getExpensesByMonth(JUNE.toString(), turn)).contains("coffee"));
+            ToolContext otherTurn = new ToolContext(new ChatTurn(permit).toolContext());
+            assertEquals(List.of("replica row"), descriptions(tools.getExpensesByMonth(JUNE.toString(), otherTurn)));
+            return null;
+        });
+    }
+
+    @Test
+    void insightsSummarizeTheMonthFromThePrimary() {
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> new ChatResponse(List.of(
+                new Generation(new AssistantMessage(invocation.getArgument(0, Prompt.class).getContents())))));
+
+        expenseService.addExpense(new ExpenseDto(null, AUGUST.atDay(3), "TRANSPORT", 123.45, "train"));
+
+        assertTrue(insightService.analyze(AUGUST, "en", null).explanation().contains("train"));
+    }
+
+    private static List<String> descriptions(List<ExpenseDto> expenses) {
+        return expenses.stream().map(ExpenseDto::description).toList();
+    }
+}
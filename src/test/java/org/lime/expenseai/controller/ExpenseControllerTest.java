@@ -0,0 +1,75 @@
+package org.lime.expenseai.controller;
+
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.ExpensePage;
+import org.lime.expenseai.service.ExpenseExportService;
+import org.lime.expenseai.service.ExpenseImportService;
+import org.lime.expenseai.service.ExpenseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExpenseController.class)
+class ExpenseControllerTest {
+
+    private static final ExpenseDto COFFEE = new ExpenseDto(1L, LocalDate.of(2025, 6, 2), "FOOD", 3.5, "coffee");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ExpenseService expenseService;
+
+    @MockitoBean
+    private ExpenseImportService expenseImportService;
+
+    @MockitoBean
+    private ExpenseExportService expenseExportService;
+
+    @Test
+    void withoutPagingParametersAllExpensesAreAnArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ExpenseDto> consumer = invocation.getArgument(0);
+            consumer.accept(COFFEE);
+            return null;
+        }).when(expenseService).forEachExpense(any());
+
+        MvcResult result = mockMvc.perform(get("/expenses"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description").value("coffee"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void limitOrCursorReturnsAPage() throws Exception {
+        when(expenseService.getPage(null, 10)).thenReturn(new ExpensePage(List.of(COFFEE), "next"));
+        when(expenseService.getPage("next", 50)).thenReturn(new ExpensePage(List.of(), null));
+
+        mockMvc.perform(get("/expenses").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].description").value("coffee"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+        mockMvc.perform(get("/expenses").param("cursor", "next"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+package org.lime.expenseai.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures GET /expenses/export throughput and heap growth against an embedded database.
+ * Row count defaults to 500k and can be changed with -Dbenchmark.export.rows=...
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase
+class ExpenseExportBenchmarkTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportThroughput() throws Exception {
+        int rows = Integer.getInteger("benchmark.export.rows", 500_000);
+        seed(rows);
+        long expected = jdbcTemplate.queryForObject("select count(*) from expense", Long.class);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("format=csv", "format=ndjson", "format=csv&gzip=true", "format=ndjson&gzip=true")) {
+            System.gc();
+            long baselineHeap = usedHeap();
+            long peakHeap = baselineHeap;
+
+            long start = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/expenses/export?" + query)).build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            assertEquals(200, response.statusCode());
+            InputStream body = query.contains("gzip=true") ? new GZIPInputStream(response.body()) : response.body();
+            long lines = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                while (reader.readLine() != null) {
+                    if (++lines % 50_000 == 0) {
+                        peakHeap = Math.max(peakHeap, usedHeap());
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+            long dataLines = query.contains("csv") ? lines - 1 : lines;
+            assertEquals(expected, dataLines);
+            System.out.printf("%s: %,d rows in %.2f s = %,.0f rows/s, peak heap growth %,d MB%n",
+                    query, dataLines, seconds, dataLines / seconds, (peakHeap - baselineHeap) / (1024 * 1024));
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void seed(int rows) {
+        Category[] categories = Category.values();
+        Random random = new Random(7);
+        long firstId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from expense", Long.class);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        int batch = 10_000;
+        for (int from = 0; from < rows; from += batch) {
+            int count = Math.min(batch, rows - from);
+            List<Object[]> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                args.add(new Object[]{
+                        firstId + from + i,
+                        Date.valueOf(start.plusDays(random.nextInt(5 * 365))),
+                        categories[random.nextInt(categories.length)].name(),
+                        Math.round(random.nextDouble() * 20_000) / 100d,
+                        "card payment, ref \"" + (from + i) + "\""
+                });
+            }
+            jdbcTemplate.batchUpdate("insert into expense (id, date, category, amount, description) values (?, ?, ?, ?, ?)", args);
+        }
+    }
+}
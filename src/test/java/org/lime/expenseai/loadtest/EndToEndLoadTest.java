@@ -0,0 +1,152 @@
+package org.lime.expenseai.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the real controllers with concurrent synthetic users against H2 and the fake models of the
+ * loadtest profile, one endpoint at a time, and prints throughput, p50/p95/p99 latency, status codes
+ * and allocation rate per endpoint. Users and duration per endpoint default to 32 and 10 s
+ * (-Dloadtest.users=..., -Dloadtest.seconds=...). Allocation is JVM-wide, so it includes the
+ * load generator.
+ */
+@Tag("benchmark")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+class EndToEndLoadTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 6);
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void endpointsUnderLoad() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 32);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.seconds", 10));
+
+        Map<String, LongFunction<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("POST /chat (quick entry)", n -> post("/chat", "{\"message\":\"yesterday, coffee-" + n + " 3.20 euros\"}"));
+        scenarios.put("POST /chat (addExpense tool)", n -> post("/chat", "{\"message\":\"record lunch-" + n + " 12.50\"}"));
+        scenarios.put("POST /chat (getMonthlyTotals tool)", n -> post("/chat", "{\"message\":\"totals " + MONTH + "\"}"));
+        scenarios.put("POST /chat/stream", n -> post("/chat/stream", "{\"message\":\"hello " + n + "\"}"));
+        scenarios.put("GET /insight", n -> get("/insight?month=" + MONTH.minusMonths(n % 12) + "&lang=en"));
+        scenarios.put("GET /insight/stream", n -> get("/insight/stream?month=" + MONTH.minusMonths(n % 12) + "&lang=en"));
+        scenarios.put("POST /expenses (classified)", n -> post("/expenses",
+                "{\"date\":\"" + MONTH.atDay(1 + (int) (n % 28)) + "\",\"amount\":9.99,\"description\":\"item-" + n + "\"}"));
+        scenarios.put("GET /expenses", n -> get("/expenses?limit=50"));
+
+        System.out.printf("%-36s %8s %9s %9s %9s %9s %12s %10s  %s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "alloc MB/s", "KB/req", "status");
+        for (Map.Entry<String, LongFunction<HttpRequest>> scenario : scenarios.entrySet()) {
+            Result result = run(scenario.getValue(), users, duration);
+            System.out.printf("%-36s %8d %9.1f %9.1f %9.1f %9.1f %12.1f %10.1f  %s%n",
+                    scenario.getKey(), result.requests(), result.throughput(),
+                    result.percentile(50), result.percentile(95), result.percentile(99),
+                    result.allocatedBytes() / duration.toSeconds() / (1024d * 1024),
+                    result.requests() == 0 ? 0 : result.allocatedBytes() / 1024d / result.requests(),
+                    result.statusCounts());
+            assertTrue(result.requests() > 0, scenario.getKey() + " completed no requests");
+        }
+    }
+
+    private Result run(LongFunction<HttpRequest> requests, int users, Duration duration) throws InterruptedException {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        AtomicLong sequence = new AtomicLong();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long requestStart = System.nanoTime();
+                        int status;
+                        try {
+                            HttpResponse<Void> response = client.send(requests.apply(sequence.incrementAndGet()),
+                                    HttpResponse.BodyHandlers.discarding());
+                            status = response.statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        latencies.add(System.nanoTime() - requestStart);
+                        statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() + 300, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted, seconds, allocatedBytes() - allocatedBefore, new TreeMap<>(statuses));
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private record Result(long[] latenciesNanos, double seconds, long allocatedBytes, Map<Integer, AtomicLong> statusCounts) {
+
+        long requests() {
+            return latenciesNanos.length;
+        }
+
+        double throughput() {
+            return latenciesNanos.length / seconds;
+        }
+
+        double percentile(double p) {
+            if (latenciesNanos.length == 0) return 0;
+            int index = (int) Math.ceil(p / 100 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, Math.min(index, latenciesNanos.length - 1))] / 1_000_000d;
+        }
+    }
+}
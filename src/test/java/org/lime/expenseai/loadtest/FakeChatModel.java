@@ -0,0 +1,144 @@
+package org.lime.expenseai.loadtest;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chat model that answers after a sampled latency with a fixed number of output tokens.
+ * Tool calls are scripted from the user message and executed through the real tool callbacks:
+ * <ul>
+ *     <li>{@code record <description> <amount>} calls addExpense for today</li>
+ *     <li>{@code totals <yyyy-MM>} calls getMonthlyTotals</li>
+ * </ul>
+ * Any other message, and every prompt without tools (insights), gets a plain text answer.
+ */
+class FakeChatModel implements ChatModel {
+
+    private static final Pattern RECORD = Pattern.compile("^record (\\S+) (\\d+(?:\\.\\d+)?)$");
+    private static final Pattern TOTALS = Pattern.compile("^totals (\\d{4}-\\d{2})$");
+
+    private final LatencyDistribution latency;
+    private final int outputTokens;
+
+    FakeChatModel(LatencyDistribution latency, int outputTokens) {
+        this.latency = latency;
+        this.outputTokens = outputTokens;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String reply = answer(prompt);
+        LatencyDistribution.sleep(latency.sample());
+        return response(reply, promptTokens(prompt), outputTokens);
+    }
+
+    /**
+     * Spreads the sampled latency evenly over the tokens; the last chunk carries the usage metadata,
+     * as Ollama's does.
+     */
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String reply = answer(prompt);
+        Duration perToken = latency.sample().dividedBy(Math.max(1, outputTokens));
+        String[] words = reply.split(" ");
+        return Flux.range(0, words.length)
+                .delayElements(perToken)
+                .map(i -> i == words.length - 1
+                        ? response(words[i], promptTokens(prompt), outputTokens)
+                        : new ChatResponse(List.of(new Generation(new AssistantMessage(words[i] + " ")))));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        // lets ChatClient pass the registered tools to call()/stream()
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    private String answer(Prompt prompt) {
+        String user = lastUserText(prompt);
+        List<ToolCallback> tools = List.of();
+        // ChatService passes a ChatTurn to the tools through the tool context
+        ToolContext toolContext = new ToolContext(Map.of());
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options) {
+            // the @Tool methods of ExpenseTools; the options still list them as the deprecated FunctionCallback
+            tools = options.getToolCallbacks().stream()
+                    .filter(ToolCallback.class::isInstance)
+                    .map(ToolCallback.class::cast)
+                    .toList();
+            if (options.getToolContext() != null) {
+                toolContext = new ToolContext(options.getToolContext());
+            }
+        }
+        Matcher record = RECORD.matcher(user);
+        if (record.matches()) {
+            String result = callTool(tools, toolContext, "addExpense", """
+                    {"date":"%s","category":null,"amount":%s,"description":"%s"}"""
+                    .formatted(LocalDate.now(), record.group(2), record.group(1)));
+            return "Recorded the expense: " + result;
+        }
+        Matcher totals = TOTALS.matcher(user);
+        if (totals.matches()) {
+            return "Monthly totals: " + callTool(tools, toolContext, "getMonthlyTotals", "{\"yearMonth\":\"" + totals.group(1) + "\"}");
+        }
+        return words(outputTokens);
+    }
+
+    private static String callTool(List<ToolCallback> tools, ToolContext toolContext, String name, String arguments) {
+        return tools.stream()
+                .filter(tool -> tool.getToolDefinition().name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Tool not registered: " + name))
+                .call(arguments, toolContext);
+    }
+
+    private static String lastUserText(Prompt prompt) {
+        List<Message> messages = prompt.getInstructions();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage user) {
+                return user.getText().trim();
+            }
+        }
+        return "";
+    }
+
+    private static int promptTokens(Prompt prompt) {
+        int chars = prompt.getInstructions().stream().mapToInt(m -> m.getText() == null ? 0 : m.getText().length()).sum();
+        return chars / 4;
+    }
+
+    private static String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append("token").append(i % 10);
+        }
+        return text.toString();
+    }
+
+    private static ChatResponse response(String text, int promptTokens, int completionTokens) {
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .model("fake-chat")
+                .usage(new DefaultUsage(promptTokens, completionTokens))
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+}
@@ -0,0 +1,56 @@
+package org.lime.expenseai.loadtest;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Embedding model that sleeps for a sampled latency per request and returns a deterministic
+ * pseudo-random vector per text, so repeated texts get identical embeddings.
+ */
+class FakeEmbeddingModel implements EmbeddingModel {
+
+    private final LatencyDistribution latency;
+    private final int dimension;
+
+    FakeEmbeddingModel(LatencyDistribution latency, int dimension) {
+        this.latency = latency;
+        this.dimension = dimension;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        LatencyDistribution.sleep(latency.sample());
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> texts = request.getInstructions();
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vector(texts.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimension;
+    }
+
+    private float[] vector(String text) {
+        Random random = new Random(text == null ? 0 : text.hashCode());
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,36 @@
+package org.lime.expenseai.loadtest;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Replaces the Ollama chat and embedding models with local fakes under the loadtest profile,
+ * so the whole request path (controllers, ExpenseTools, cache, database) runs without network access.
+ */
+@Configuration
+@Profile("loadtest")
+public class FakeModelConfiguration {
+
+    @Bean
+    @Primary
+    ChatModel fakeChatModel(@Value("${loadtest.fake.chat.latency-median:800ms}") Duration median,
+                            @Value("${loadtest.fake.chat.latency-sigma:0.5}") double sigma,
+                            @Value("${loadtest.fake.chat.output-tokens:120}") int outputTokens) {
+        return new FakeChatModel(new LatencyDistribution(median, sigma), outputTokens);
+    }
+
+    @Bean
+    @Primary
+    EmbeddingModel fakeEmbeddingModel(@Value("${loadtest.fake.embedding.latency-median:40ms}") Duration median,
+                                      @Value("${loadtest.fake.embedding.latency-sigma:0.3}") double sigma,
+                                      @Value("${loadtest.fake.embedding.dimension:768}") int dimension) {
+        return new FakeEmbeddingModel(new LatencyDistribution(median, sigma), dimension);
+    }
+}
@@ -0,0 +1,28 @@
+package org.lime.expenseai.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency: half the samples are below the median, and sigma controls the tail
+ * (sigma 0.5 puts p99 at roughly 3.2x the median).
+ */
+record LatencyDistribution(Duration median, double sigma) {
+
+    Duration sample() {
+        if (median.isZero()) {
+            return Duration.ZERO;
+        }
+        double factor = Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (median.toNanos() * factor));
+    }
+
+    static void sleep(Duration duration) {
+        if (duration.isZero()) return;
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
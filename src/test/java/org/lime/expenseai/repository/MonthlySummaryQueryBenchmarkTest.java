@@ -0,0 +1,155 @@
+package org.lime.expenseai.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.entity.MonthlyCategoryRollup;
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.service.MonthlyRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the old entity-materializing monthly summary with the GROUP BY projection queries and the
+ * rollup table. Row counts per month default to 10k/100k/1M and can be overridden with
+ * -Dbenchmark.rows=10000,50000.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@Import(MonthlyRollupService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MonthlySummaryQueryBenchmarkTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 6);
+    private static final int WARMUP = 2;
+    private static final int ITERATIONS = 5;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MonthlyRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareSummaryStrategies() {
+        String rows = System.getProperty("benchmark.rows", "10000,100000,1000000");
+        for (int size : Arrays.stream(rows.split(",")).mapToInt(r -> Integer.parseInt(r.trim())).toArray()) {
+            seed(size);
+            rollupService.rebuild();
+
+            double entities = time(this::summaryFromEntities);
+            double projections = time(this::summaryFromProjections);
+            double rollups = time(this::summaryFromRollups);
+            assertEquals(summaryFromEntities(), summaryFromProjections(), 0.01 * size);
+            assertEquals(summaryFromEntities(), summaryFromRollups(), 0.01 * size);
+
+            System.out.printf("rows/month=%,d entities=%.2f ms projections=%.2f ms rollups=%.2f ms%n",
+                    size, entities, projections, rollups);
+        }
+    }
+
+    // The previous implementation: load every row of both months, then aggregate and sort in Java
+    private double summaryFromEntities() {
+        List<Expense> current = expenseRepository.findByDateBetween(MONTH.atDay(1), MONTH.atEndOfMonth());
+        Map<String, Double> byCategory = current.stream()
+                .collect(Collectors.groupingBy(Expense::getCategory, Collectors.summingDouble(Expense::getAmount)));
+        YearMonth prev = MONTH.minusMonths(1);
+        double prevTotal = expenseRepository.findByDateBetween(prev.atDay(1), prev.atEndOfMonth()).stream()
+                .mapToDouble(Expense::getAmount).sum();
+        List<Expense> top = current.stream()
+                .sorted(Comparator.comparingDouble(Expense::getAmount).reversed())
+                .limit(3)
+                .toList();
+        return checksum(byCategory, prevTotal, top);
+    }
+
+    private double summaryFromProjections() {
+        Map<String, Double> byCategory = expenseRepository.sumByCategoryBetween(MONTH.atDay(1), MONTH.atEndOfMonth()).stream()
+                .collect(Collectors.toMap(ExpenseRepository.CategoryTotal::getCategory, ExpenseRepository.CategoryTotal::getTotal));
+        YearMonth prev = MONTH.minusMonths(1);
+        double prevTotal = expenseRepository.sumAmountBetween(prev.atDay(1), prev.atEndOfMonth());
+        List<Expense> top = expenseRepository.findByDateBetweenOrderByAmountDesc(MONTH.atDay(1), MONTH.atEndOfMonth(), Limit.of(3));
+        return checksum(byCategory, prevTotal, top);
+    }
+
+    private double summaryFromRollups() {
+        Map<String, Double> byCategory = rollupService.forMonth(MONTH).stream()
+                .collect(Collectors.toMap(MonthlyCategoryRollup::getCategory, MonthlyCategoryRollup::getTotal));
+        double prevTotal = rollupService.forMonth(MONTH.minusMonths(1)).stream()
+                .mapToDouble(MonthlyCategoryRollup::getTotal).sum();
+        List<Expense> top = expenseRepository.findByDateBetweenOrderByAmountDesc(MONTH.atDay(1), MONTH.atEndOfMonth(), Limit.of(3));
+        return checksum(byCategory, prevTotal, top);
+    }
+
+    private static double checksum(Map<String, Double> byCategory, double prevTotal, List<Expense> top) {
+        return byCategory.values().stream().mapToDouble(Double::doubleValue).sum()
+                + prevTotal
+                + top.stream().mapToDouble(Expense::getAmount).sum();
+    }
+
+    private static double time(DoubleSupplier summary) {
+        for (int i = 0; i < WARMUP; i++) {
+            summary.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            summary.getAsDouble();
+        }
+        return (System.nanoTime() - start) / 1_000_000d / ITERATIONS;
+    }
+
+    private void seed(int rowsPerMonth) {
+        jdbcTemplate.update("delete from expense");
+        Category[] categories = Category.values();
+        Random random = new Random(42);
+        insert(MONTH.minusMonths(1), rowsPerMonth / 10, categories, random);
+        insert(MONTH, rowsPerMonth, categories, random);
+    }
+
+    private void insert(YearMonth month, int rows, Category[] categories, Random random) {
+        int batch = 10_000;
+        long firstId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from expense", Long.class);
+        for (int from = 0; from < rows; from += batch) {
+            int count = Math.min(batch, rows - from);
+            List<Object[]> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                LocalDate date = month.atDay(1 + random.nextInt(month.lengthOfMonth()));
+                args.add(new Object[]{
+                        firstId + from + i,
+                        Date.valueOf(date),
+                        categories[random.nextInt(categories.length)].name(),
+                        Math.round(random.nextDouble() * 20_000) / 100d,
+                        "expense " + (from + i)
+                });
+            }
+            jdbcTemplate.batchUpdate("insert into expense (id, date, category, amount, description) values (?, ?, ?, ?, ?)", args);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.entity.EmbeddingCacheEntry;
+import org.lime.expenseai.repository.EmbeddingCacheRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+class EmbeddingCacheTest {
+
+    private static final String MODEL = "test-model";
+
+    @Autowired
+    private EmbeddingCacheRepository repository;
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        EmbeddingCache cache = cache(2, false);
+        cache.put(MODEL, "coffee", new float[]{1});
+        cache.put(MODEL, "bread", new float[]{2});
+        cache.get(MODEL, "coffee");
+        cache.put(MODEL, "taxi", new float[]{3});
+
+        assertNull(cache.get(MODEL, "bread"));
+        assertArrayEquals(new float[]{1}, cache.get(MODEL, "coffee"));
+        assertArrayEquals(new float[]{3}, cache.get(MODEL, "taxi"));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void entriesAreWrittenThroughAndReloadedByANewCache() {
+        float[] vector = new float[1024];
+        vector[1023] = 1;
+        cache(10, true).put(MODEL, "coffee", vector);
+
+        EmbeddingCache restarted = cache(10, true);
+        assertArrayEquals(vector, restarted.get(MODEL, "coffee"));
+        assertNull(restarted.get("other-model", "coffee"));
+    }
+
+    @Test
+    void theTableIsPrunedToTheNewestRowsWhoeverWroteThem() {
+        // rows of another replica that this cache never held
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            repository.save(new EmbeddingCacheEntry("replica-" + i, MODEL, "text " + i, new byte[4],
+                    now.minusSeconds(60 - i)));
+        }
+
+        cache(2, true).put(MODEL, "coffee", new float[]{1});
+
+        List<String> kept = repository.findAll().stream().map(EmbeddingCacheEntry::getText).sorted().toList();
+        assertEquals(List.of("coffee", "text 2"), kept);
+    }
+
+    private EmbeddingCache cache(int maxSize, boolean persistent) {
+        return new EmbeddingCache(repository, new SimpleMeterRegistry(), maxSize, persistent);
+    }
+}
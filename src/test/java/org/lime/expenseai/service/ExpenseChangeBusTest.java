@@ -0,0 +1,94 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpenseChangeBusTest {
+
+    private static final Set<YearMonth> MONTHS = Set.of(YearMonth.of(2025, 5), YearMonth.of(2025, 6));
+
+    @Test
+    void notificationPayloadRoundTripsAndSkipsOwnChanges() {
+        ExpensesChangedEvent event = new ExpensesChangedEvent(Set.of(17L, 18L), MONTHS);
+        String payload = PostgresExpenseChangeBus.encode("replica-a", event);
+
+        assertEquals(new ExpensesChangedEvent(Set.of(17L, 18L), MONTHS, true),
+                PostgresExpenseChangeBus.decode("replica-b", payload));
+        assertNull(PostgresExpenseChangeBus.decode("replica-a", payload));
+        assertNull(PostgresExpenseChangeBus.decode("replica-b", "not a change"));
+    }
+
+    @Test
+    void idsAreDroppedWhenThePayloadWouldBeTooLarge() {
+        Set<Long> ids = LongStream.range(1_000_000, 1_002_000).boxed().collect(Collectors.toSet());
+        String payload = PostgresExpenseChangeBus.encode("replica-a", new ExpensesChangedEvent(ids, MONTHS));
+
+        assertTrue(payload.length() <= PostgresExpenseChangeBus.MAX_PAYLOAD_BYTES);
+        ExpensesChangedEvent decoded = PostgresExpenseChangeBus.decode("replica-b", payload);
+        assertEquals(MONTHS, decoded.months());
+        assertTrue(decoded.expenseIds().isEmpty());
+    }
+
+    @Test
+    void inJvmBusDeliversToTheOtherReplicasOnly() {
+        InJvmExpenseChangeBus first = new InJvmExpenseChangeBus("test_channel");
+        InJvmExpenseChangeBus second = new InJvmExpenseChangeBus("test_channel");
+        InJvmExpenseChangeBus elsewhere = new InJvmExpenseChangeBus("other_channel");
+        List<ExpensesChangedEvent> firstReceived = new ArrayList<>();
+        List<ExpensesChangedEvent> secondReceived = new ArrayList<>();
+        List<ExpensesChangedEvent> elsewhereReceived = new ArrayList<>();
+        first.subscribe(receiver(firstReceived));
+        second.subscribe(receiver(secondReceived));
+        elsewhere.subscribe(receiver(elsewhereReceived));
+        try {
+            first.publish(new ExpensesChangedEvent(Set.of(1L), MONTHS));
+
+            assertEquals(List.of(new ExpensesChangedEvent(Set.of(1L), MONTHS, true)), secondReceived);
+            assertTrue(firstReceived.isEmpty());
+            assertTrue(elsewhereReceived.isEmpty());
+        } finally {
+            first.close();
+            second.close();
+            elsewhere.close();
+        }
+    }
+
+    @Test
+    void inJvmBusesWithoutAChannelAreIsolated() {
+        InJvmExpenseChangeBus first = new InJvmExpenseChangeBus("");
+        InJvmExpenseChangeBus second = new InJvmExpenseChangeBus("");
+        List<ExpensesChangedEvent> secondReceived = new ArrayList<>();
+        second.subscribe(receiver(secondReceived));
+        try {
+            first.publish(new ExpensesChangedEvent(Set.of(1L), MONTHS));
+
+            assertTrue(secondReceived.isEmpty());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    private static ExpenseChangeBus.Receiver receiver(List<ExpensesChangedEvent> received) {
+        return new ExpenseChangeBus.Receiver() {
+            @Override
+            public void onRemoteChange(ExpensesChangedEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onChangesMissed() {
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.ExpenseDto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpenseColumnsTest {
+
+    private static final YearMonth MAY = YearMonth.of(2025, 5);
+    private static final YearMonth JUNE = YearMonth.of(2025, 6);
+    private static final YearMonth JULY = YearMonth.of(2025, 7);
+
+    @Test
+    void rangeReadsAndAggregatesMatchTheRows() {
+        List<ExpenseDto> rows = rows(2_000, 42);
+        ExpenseColumns columns = load(rows);
+
+        LocalDate from = JUNE.atDay(1);
+        LocalDate to = JUNE.atEndOfMonth();
+        List<ExpenseDto> june = rows.stream()
+                .filter(row -> !row.date().isBefore(from) && !row.date().isAfter(to))
+                .toList();
+
+        assertEquals(june, columns.between(from, to));
+        assertEquals(june.stream().mapToDouble(ExpenseDto::amount).sum(), columns.total(from, to), 1e-6);
+        assertEquals(totals(june), columns.totalsByCategory(from, to));
+        assertEquals(june.stream().sorted(Comparator.comparingDouble(ExpenseDto::amount).reversed())
+                        .limit(3).map(ExpenseDto::amount).toList(),
+                columns.top(from, to, 3).stream().map(ExpenseDto::amount).toList());
+
+        LocalDate day = JUNE.atDay(15);
+        assertEquals(rows.stream().filter(row -> row.date().equals(day)).toList(), columns.between(day, day));
+        assertTrue(columns.between(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 12, 31)).isEmpty());
+    }
+
+    @Test
+    void replacingAMonthLeavesItsNeighboursAlone() {
+        ExpenseColumns columns = load(rows(1_000, 7));
+        List<ExpenseDto> may = columns.between(MAY.atDay(1), MAY.atEndOfMonth());
+        List<ExpenseDto> july = columns.between(JULY.atDay(1), JULY.atEndOfMonth());
+
+        List<ExpenseDto> newJune = List.of(
+                new ExpenseDto(9_002L, JUNE.atDay(20), "FOOD", 12.5, "pizza"),
+                new ExpenseDto(9_001L, JUNE.atDay(3), null, 4.25, null));
+        columns.replaceRange(JUNE.atDay(1), JUNE.atEndOfMonth(), newJune);
+
+        assertEquals(List.of(newJune.get(1), newJune.get(0)), columns.between(JUNE.atDay(1), JUNE.atEndOfMonth()));
+        assertEquals(may, columns.between(MAY.atDay(1), MAY.atEndOfMonth()));
+        assertEquals(july, columns.between(JULY.atDay(1), JULY.atEndOfMonth()));
+        assertEquals(Map.of("FOOD", 12.5, "OTHER", 4.25), columns.totalsByCategory(JUNE.atDay(1), JUNE.atEndOfMonth()));
+        assertEquals(may.size() + 2 + july.size(), columns.size());
+
+        columns.replaceRange(JUNE.atDay(1), JUNE.atEndOfMonth(), List.of());
+        assertTrue(columns.between(JUNE.atDay(1), JUNE.atEndOfMonth()).isEmpty());
+        assertEquals(july, columns.between(JULY.atDay(1), JULY.atEndOfMonth()));
+    }
+
+    @Test
+    void upsertingRowsMatchesLoadingTheChangedTable() {
+        List<ExpenseDto> rows = new ArrayList<>(rows(1_000, 11));
+        ExpenseColumns columns = load(rows);
+
+        ExpenseDto moved = rows.stream().filter(row -> YearMonth.from(row.date()).equals(MAY)).findFirst().orElseThrow();
+        ExpenseDto deleted = rows.stream().filter(row -> YearMonth.from(row.date()).equals(JUNE)).findFirst().orElseThrow();
+        ExpenseDto movedTo = new ExpenseDto(moved.id(), JULY.atDay(9), "FOOD", 7.5, "moved");
+        ExpenseDto added = new ExpenseDto(5_000L, JUNE.atDay(9), null, 3.0, null);
+        rows.removeAll(List.of(moved, deleted));
+        rows.addAll(List.of(movedTo, added));
+        rows.sort(Comparator.comparing(ExpenseDto::date).thenComparing(ExpenseDto::id));
+
+        columns.upsert(Set.of(MAY, JUNE, JULY), Set.of(moved.id(), deleted.id(), added.id()),
+                List.of(added, movedTo));
+
+        assertEquals(rows, columns.between(MAY.atDay(1), JULY.atEndOfMonth()));
+        assertEquals(load(rows).aggregateByMonth().keySet(), columns.aggregateByMonth().keySet());
+        assertEquals(rows.size(), columns.size());
+    }
+
+    @Test
+    void aggregatesPerMonthInCents() {
+        ExpenseColumns columns = new ExpenseColumns();
+        columns.append(new ExpenseDto(1L, JUNE.atDay(1), "FOOD", 1.10, "coffee"));
+        columns.append(new ExpenseDto(2L, JUNE.atDay(2), "FOOD", 2.20, "coffee"));
+        columns.append(new ExpenseDto(3L, JULY.atDay(1), "Gym", 30, "membership"));
+
+        Map<YearMonth, Map<String, long[]>> aggregate = columns.aggregateByMonth();
+        assertArrayEquals(new long[]{2, 330}, aggregate.get(JUNE).get("FOOD"));
+        // categories that are not Category names get their own code
+        assertArrayEquals(new long[]{1, 3000}, aggregate.get(JULY).get("Gym"));
+    }
+
+    @Test
+    void categoriesPastTheCodeLimitAreStoredAsOther() {
+        ExpenseColumns columns = new ExpenseColumns();
+        int count = ExpenseColumns.MAX_CATEGORY_CODES + 10;
+        for (int i = 0; i < count; i++) {
+            columns.append(new ExpenseDto((long) i + 1, JUNE.atDay(1), "category " + i, 1, null));
+        }
+
+        List<ExpenseDto> rows = columns.between(JUNE.atDay(1), JUNE.atDay(1));
+        assertEquals(count, rows.size());
+        assertEquals("category 200", rows.get(200).category());
+        assertEquals("OTHER", rows.get(count - 1).category());
+        // the Category names hold the first codes, OTHER the last one
+        int stored = ExpenseColumns.MAX_CATEGORY_CODES - 1 - Category.values().length;
+        assertEquals(count - stored, columns.totalsByCategory(JUNE.atDay(1), JUNE.atDay(1)).get("OTHER"), 1e-9);
+    }
+
+    private static ExpenseColumns load(List<ExpenseDto> rows) {
+        ExpenseColumns columns = new ExpenseColumns();
+        rows.forEach(columns::append);
+        return columns;
+    }
+
+    // sorted by (date, id) like the load query
+    private static List<ExpenseDto> rows(int count, long seed) {
+        String[] categories = {"FOOD", "TRANSPORT", "GROCERIES", null};
+        Random random = new Random(seed);
+        LocalDate start = MAY.atDay(1);
+        int days = (int) (JULY.atEndOfMonth().toEpochDay() - start.toEpochDay() + 1);
+        List<ExpenseDto> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new ExpenseDto((long) i + 1, start.plusDays(random.nextInt(days)),
+                    categories[random.nextInt(categories.length)],
+                    random.nextInt(20_000) / 100.0,
+                    "expense " + random.nextInt(50)));
+        }
+        rows.sort(Comparator.comparing(ExpenseDto::date).thenComparing(ExpenseDto::id));
+        return rows;
+    }
+
+    private static Map<String, Double> totals(List<ExpenseDto> rows) {
+        Map<String, Long> cents = new TreeMap<>();
+        for (ExpenseDto row : rows) {
+            cents.merge(row.category() == null ? "OTHER" : row.category(), Math.round(row.amount() * 100), Long::sum);
+        }
+        Map<String, Double> totals = new TreeMap<>();
+        cents.forEach((category, sum) -> totals.put(category, sum / 100.0));
+        return totals;
+    }
+}
@@ -0,0 +1,123 @@
+package org.lime.expenseai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.ExpenseDto;
+import org.lime.expenseai.model.ImportError;
+import org.lime.expenseai.model.ImportResult;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpenseImportServiceTest {
+
+    @Test
+    void parsesBothDecimalNotations() {
+        assertEquals(6.66, ExpenseImportService.parseAmount("6.66"));
+        assertEquals(6.66, ExpenseImportService.parseAmount("6,66"));
+        assertEquals(1234.56, ExpenseImportService.parseAmount("1,234.56"));
+        assertEquals(1234.56, ExpenseImportService.parseAmount("1.234,56"));
+        assertEquals(1234567.0, ExpenseImportService.parseAmount("1.234.567"));
+        assertEquals(1234567.0, ExpenseImportService.parseAmount("1,234,567"));
+        assertEquals(1234567.89, ExpenseImportService.parseAmount("1.234.567,89 €"));
+        assertEquals(-12.5, ExpenseImportService.parseAmount("-12,50"));
+    }
+
+    @Test
+    void semicolonCsvWithThousandsSeparators() throws Exception {
+        List<ExpenseDto> added = new ArrayList<>();
+        ExpenseService expenseService = mock(ExpenseService.class);
+        when(expenseService.addExpenses(anyList())).thenAnswer(invocation -> {
+            List<ExpenseDto> rows = invocation.getArgument(0);
+            added.addAll(rows);
+            return rows;
+        });
+        ExpenseImportService importService = new ExpenseImportService(expenseService, new ObjectMapper(), 100);
+
+        ImportResult result = importService.importCsv(new StringReader("""
+                date;amount;description
+                2025-07-01;1.234,56;rent
+                2025-07-02;6,66;coffee
+                """));
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(1234.56, 6.66), added.stream().map(ExpenseDto::amount).toList());
+    }
+
+    @Test
+    void aFailedBatchReportsOnlyTheOffendingRows() throws Exception {
+        List<String> added = new ArrayList<>();
+        ExpenseService expenseService = mock(ExpenseService.class);
+        when(expenseService.addExpenses(anyList())).thenAnswer(invocation -> {
+            List<ExpenseDto> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.description().length() > 10)) {
+                throw new IllegalStateException("could not execute batch",
+                        new IllegalStateException("value too long for type character varying(10)"));
+            }
+            rows.forEach(row -> added.add(row.description()));
+            return rows;
+        });
+        ExpenseImportService importService = new ExpenseImportService(expenseService, new ObjectMapper(), 100);
+
+        ImportResult result = importService.importCsv(new StringReader("""
+                date,amount,description
+                2025-07-01,10,coffee
+                2025-07-02,20,a description that is too long
+                2025-07-03,30,lunch
+                """));
+
+        assertEquals(2, result.imported());
+        assertEquals(1, result.failed());
+        assertEquals(List.of(new ImportError(3, "value too long for type character varying(10)")), result.errors());
+        assertEquals(List.of("coffee", "lunch"), added);
+    }
+
+    @Test
+    void headerWithAByteOrderMark() throws Exception {
+        List<ExpenseDto> added = new ArrayList<>();
+        ExpenseImportService importService = new ExpenseImportService(recording(added), new ObjectMapper(), 100);
+
+        ImportResult result = importService.importCsv(new StringReader(
+                "\uFEFFdate,amount,description\n2025-07-01,10,coffee\n"));
+
+        assertEquals(1, result.imported());
+        assertEquals(List.of(), result.errors());
+        assertEquals(List.of("coffee"), added.stream().map(ExpenseDto::description).toList());
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws Exception {
+        List<ExpenseDto> added = new ArrayList<>();
+        ExpenseImportService importService = new ExpenseImportService(recording(added), new ObjectMapper(), 100);
+
+        ImportResult result = importService.importCsv(new StringReader("""
+                date,amount,description
+                2025-07-01,10,"dinner
+                with ""friends"", downtown"
+                2025-07-02,x,lunch
+                2025-07-03,30,"unterminated
+                """));
+
+        assertEquals(1, result.imported());
+        assertEquals(List.of("dinner\nwith \"friends\", downtown"), added.stream().map(ExpenseDto::description).toList());
+        // errors name the line the record starts on
+        assertEquals(List.of(new ImportError(4, "Invalid amount: x"), new ImportError(5, "Unterminated quoted field")),
+                result.errors());
+    }
+
+    private static ExpenseService recording(List<ExpenseDto> added) {
+        ExpenseService expenseService = mock(ExpenseService.class);
+        when(expenseService.addExpenses(anyList())).thenAnswer(invocation -> {
+            List<ExpenseDto> rows = invocation.getArgument(0);
+            added.addAll(rows);
+            return rows;
+        });
+        return expenseService;
+    }
+}
@@ -0,0 +1,64 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.Insight;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InsightCacheTest {
+
+    private static final YearMonth JUNE = YearMonth.of(2025, 6);
+    private static final Insight INSIGHT = new Insight("Food is up 10%.");
+
+    private final MonthDataVersions versions = new MonthDataVersions();
+    private final InsightCache cache = new InsightCache(versions, new SimpleMeterRegistry(), 10);
+
+    @Test
+    void aWriteToTheMonthInvalidatesItsInsight() {
+        InsightCache.Key key = cached(JUNE);
+
+        changed(JUNE);
+
+        assertNull(cache.get(key));
+        assertNotEquals(key, cache.key(JUNE, "English", "EUR"));
+    }
+
+    @Test
+    void aWriteToThePreviousMonthInvalidatesTheInsight() {
+        InsightCache.Key key = cached(JUNE);
+
+        changed(JUNE.minusMonths(1));
+
+        assertNull(cache.get(key));
+        assertNotEquals(key, cache.key(JUNE, "English", "EUR"));
+    }
+
+    @Test
+    void writesToUnrelatedMonthsKeepTheInsight() {
+        InsightCache.Key key = cached(JUNE);
+
+        changed(JUNE.plusMonths(1));
+        changed(JUNE.minusMonths(2));
+
+        assertEquals(key, cache.key(JUNE, "English", "EUR"));
+        assertEquals(INSIGHT, cache.get(key));
+    }
+
+    private InsightCache.Key cached(YearMonth month) {
+        InsightCache.Key key = cache.key(month, "English", "EUR");
+        cache.put(key, INSIGHT, 1.5);
+        return key;
+    }
+
+    private void changed(YearMonth month) {
+        ExpensesChangedEvent event = new ExpensesChangedEvent(Set.of(1L), Set.of(month));
+        versions.onExpensesChanged(event);
+        cache.onExpensesChanged(event);
+    }
+}
@@ -0,0 +1,73 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmBulkheadTest {
+
+    private static final int MAX_CONCURRENT = 2;
+
+    private final LlmBulkhead bulkhead = new LlmBulkhead(new SimpleMeterRegistry(), MAX_CONCURRENT, 4,
+            Duration.ofMillis(200), Duration.ofSeconds(10));
+
+    @Test
+    void streamedToolCallsShareTheChatPermitAtFullConcurrency() {
+        List<String> replies = runStreams(turn -> turn.write(() -> bulkhead.call(() -> "embedded")));
+
+        assertEquals(List.of("embedded", "embedded"), replies);
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void nestedCallOnAReactorThreadWithoutTheTurnWaitsForASecondPermit() {
+        List<String> replies = runStreams(turn -> bulkhead.call(() -> "embedded"));
+
+        assertEquals(List.of("LlmBusyException", "LlmBusyException"), replies);
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void blockingCallsAreReentrantOnTheirThread() {
+        assertEquals("inner", bulkhead.call(() -> bulkhead.call(() -> "inner")));
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    // MAX_CONCURRENT streaming chats, each making one tool call on another thread once all of them hold
+    // their permit, like Spring AI does for the tool calls of a streamed answer. Every chat keeps its permit
+    // until all tool calls are done, so a failed call cannot free a permit for another one
+    private List<String> runStreams(Function<ChatTurn, String> toolCall) {
+        CountDownLatch allHoldPermits = new CountDownLatch(MAX_CONCURRENT);
+        CountDownLatch allToolCallsDone = new CountDownLatch(MAX_CONCURRENT);
+        return Flux.range(0, MAX_CONCURRENT)
+                .flatMap(i -> bulkhead.streamWithPermit(permit -> {
+                    ChatTurn turn = new ChatTurn(permit);
+                    allHoldPermits.countDown();
+                    return Mono.fromCallable(() -> {
+                        assertTrue(allHoldPermits.await(5, TimeUnit.SECONDS));
+                        String reply;
+                        try {
+                            reply = toolCall.apply(turn);
+                        } catch (RuntimeException e) {
+                            reply = e.getClass().getSimpleName();
+                        }
+                        allToolCallsDone.countDown();
+                        assertTrue(allToolCallsDone.await(5, TimeUnit.SECONDS));
+                        return reply;
+                    }).subscribeOn(Schedulers.boundedElastic()).flux();
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,86 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.model.Category;
+import org.lime.expenseai.model.CategorySource;
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+class LocalCategoryModelTest {
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void trainsOnlyOnCategoriesUsersChose() {
+        expenseRepository.save(expense("espresso bar", "FOOD", CategorySource.USER));
+        expenseRepository.save(expense("cinema tickets", "ENTERTAINMENT", CategorySource.CLASSIFIER));
+        expenseRepository.save(expense("bus ticket", "TRANSPORT", null));
+
+        LocalCategoryModel model = model("");
+        model.train();
+
+        assertEquals(1, model.examples());
+        assertEquals("FOOD", model.classify(EmbeddingCache.normalize("espresso bar")));
+    }
+
+    @Test
+    void discardsSnapshotsWrittenBeforeTheSourceWasRecorded() throws Exception {
+        Path snapshot = snapshotDir.resolve("category-model.bin");
+        NgramNaiveBayes predicted = new NgramNaiveBayes();
+        for (int i = 0; i < 5; i++) {
+            predicted.learn("cinema " + i, Category.ENTERTAINMENT);
+        }
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(snapshot))) {
+            out.writeLong(0);
+            predicted.writeTo(out);
+        }
+        expenseRepository.save(expense("espresso bar", "FOOD", CategorySource.USER));
+
+        LocalCategoryModel model = model(snapshot.toString());
+        model.train();
+        assertEquals(1, model.examples());
+
+        // the snapshot it writes is read back on the next start
+        LocalCategoryModel restarted = model(snapshot.toString());
+        restarted.train();
+        assertEquals(1, restarted.examples());
+    }
+
+    private LocalCategoryModel model(String snapshotPath) {
+        return new LocalCategoryModel(expenseRepository, transactionTemplate, new SimpleMeterRegistry(),
+                true, 0.5, 1, snapshotPath);
+    }
+
+    private static Expense expense(String description, String category, CategorySource source) {
+        Expense expense = new Expense();
+        expense.setDate(LocalDate.of(2025, 6, 2));
+        expense.setDescription(description);
+        expense.setCategory(category);
+        expense.setCategorySource(source);
+        return expense;
+    }
+}
@@ -0,0 +1,153 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.entity.Expense;
+import org.lime.expenseai.entity.MonthlyCategoryRollup;
+import org.lime.expenseai.repository.ExpenseRepository;
+import org.lime.expenseai.repository.MonthlyCategoryRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+@Import(MonthlyRollupService.class)
+class MonthlyRollupServiceTest {
+
+    private static final YearMonth JUNE = YearMonth.of(2025, 6);
+    private static final YearMonth JULY = YearMonth.of(2025, 7);
+
+    @Autowired
+    private MonthlyRollupService rollupService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MonthlyCategoryRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // concurrentFirstWritesForANewMonthAllCount commits outside the test transaction
+    @AfterEach
+    void deleteCommittedRollups() {
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.deleteAll(rollupService.forMonth(JULY)));
+    }
+
+    @Test
+    void addCreatesAndThenUpdatesTheRollupRow() {
+        rollupService.add(JUNE.atDay(2), "FOOD", 10);
+        rollupService.add(JUNE.atDay(3), "FOOD", 25);
+        rollupService.add(JUNE.atDay(3), null, 4);
+
+        Map<String, MonthlyCategoryRollup> rollups = rollups();
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "FOOD", 35, 2, 25), withoutId(rollups.get("FOOD")));
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "OTHER", 4, 1, 4), withoutId(rollups.get("OTHER")));
+    }
+
+    @Test
+    void addAllAppliesOneDeltaPerMonthAndCategory() {
+        rollupService.add(JUNE.atDay(1), "FOOD", 50);
+        rollupService.addAll(List.of(
+                expense(JUNE.atDay(5), "FOOD", 20),
+                expense(JUNE.atDay(6), "FOOD", 30),
+                expense(JUNE.atDay(7), "TRAVEL", 70)));
+
+        Map<String, MonthlyCategoryRollup> rollups = rollups();
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "FOOD", 100, 3, 50), withoutId(rollups.get("FOOD")));
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "TRAVEL", 70, 1, 70), withoutId(rollups.get("TRAVEL")));
+    }
+
+    @Test
+    void removingTheMaximumRecomputesItAndRemovingTheLastRowDeletesTheRollup() {
+        Expense small = expenseRepository.save(expense(JUNE.atDay(2), "FOOD", 10));
+        Expense large = expenseRepository.save(expense(JUNE.atDay(3), "FOOD", 40));
+        rollupService.addAll(List.of(small, large));
+
+        expenseRepository.delete(large);
+        rollupService.remove(large.getDate(), large.getCategory(), large.getAmount());
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "FOOD", 10, 1, 10), withoutId(rollups().get("FOOD")));
+
+        expenseRepository.delete(small);
+        rollupService.remove(small.getDate(), small.getCategory(), small.getAmount());
+        assertTrue(rollups().isEmpty());
+    }
+
+    @Test
+    void removingTheMaximumWithoutACategoryRecomputesTheOtherRollup() {
+        Expense small = expenseRepository.save(expense(JUNE.atDay(2), null, 10));
+        Expense large = expenseRepository.save(expense(JUNE.atDay(3), null, 40));
+        rollupService.addAll(List.of(small, large));
+
+        expenseRepository.delete(large);
+        rollupService.remove(large.getDate(), large.getCategory(), large.getAmount());
+        assertEquals(new MonthlyCategoryRollup(null, "2025-06", "OTHER", 10, 1, 10), withoutId(rollups().get("OTHER")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentFirstWritesForANewMonthAllCount() throws Exception {
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> {
+                        rollupService.add(JULY.atDay(1), "FOOD", 5);
+                        return null;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        }
+        MonthlyCategoryRollup rollup = rollupService.forMonth(JULY).getFirst();
+        assertEquals(new MonthlyCategoryRollup(null, "2025-07", "FOOD", 40, writers, 5), withoutId(rollup));
+    }
+
+    private Map<String, MonthlyCategoryRollup> rollups() {
+        return rollupService.forMonth(JUNE).stream()
+                .collect(Collectors.toMap(MonthlyCategoryRollup::getCategory, rollup -> rollup));
+    }
+
+    private static MonthlyCategoryRollup withoutId(MonthlyCategoryRollup rollup) {
+        return new MonthlyCategoryRollup(null, rollup.getMonth(), rollup.getCategory(), rollup.getTotal(),
+                rollup.getCount(), rollup.getMaxAmount());
+    }
+
+    private static Expense expense(LocalDate date, String category, double amount) {
+        Expense expense = new Expense();
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setAmount(amount);
+        expense.setDescription("test");
+        return expense;
+    }
+}
@@ -0,0 +1,72 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramNaiveBayesTest {
+
+    private static final String[][] EXAMPLES = {
+            {"coffee", "FOOD"}, {"lunch with the team", "FOOD"}, {"dinner", "FOOD"}, {"pizza delivery", "FOOD"},
+            {"uber ride", "TRANSPORT"}, {"taxi to the airport", "TRANSPORT"}, {"train ticket", "TRANSPORT"},
+            {"supermarket", "GROCERIES"}, {"lidl groceries", "GROCERIES"}, {"bakery bread", "GROCERIES"},
+            {"cinema tickets", "ENTERTAINMENT"}, {"netflix subscription", "ENTERTAINMENT"},
+            {"new shoes", "SHOPPING"}, {"amazon order", "SHOPPING"}
+    };
+
+    @Test
+    void predictsConfidentlyForKnownWordsOnly() {
+        NgramNaiveBayes model = trained(10);
+
+        NgramNaiveBayes.Prediction prediction = model.predict("uber to work");
+        assertEquals(Category.TRANSPORT, prediction.category());
+        assertTrue(prediction.confidence() > 0.95, "confidence " + prediction.confidence());
+        assertEquals(Category.ENTERTAINMENT, model.predict("netflix").category());
+
+        assertTrue(model.predict("something else entirely").confidence() < 0.95);
+        assertNull(new NgramNaiveBayes().predict("coffee"));
+    }
+
+    @Test
+    void correctionsMoveADescriptionToAnotherCategory() {
+        NgramNaiveBayes model = trained(1);
+        model.forget("coffee", Category.FOOD);
+        model.learn("coffee", Category.GROCERIES);
+        assertEquals(Category.GROCERIES, model.predict("coffee").category());
+        assertEquals(EXAMPLES.length, model.examples());
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        NgramNaiveBayes model = trained(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeTo(new DataOutputStream(bytes));
+
+        NgramNaiveBayes restored = NgramNaiveBayes.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(model.examples(), restored.examples());
+        assertEquals(model.predict("train to berlin"), restored.predict("train to berlin"));
+
+        assertThrows(IOException.class,
+                () -> NgramNaiveBayes.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16]))));
+    }
+
+    private static NgramNaiveBayes trained(int rounds) {
+        NgramNaiveBayes model = new NgramNaiveBayes();
+        for (int round = 0; round < rounds; round++) {
+            for (String[] example : EXAMPLES) {
+                model.learn(example[0], Category.valueOf(example[1]));
+            }
+        }
+        return model;
+    }
+}
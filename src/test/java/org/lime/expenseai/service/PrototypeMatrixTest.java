@@ -0,0 +1,70 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.Test;
+import org.lime.expenseai.model.Category;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrototypeMatrixTest {
+
+    @Test
+    void vectorizedAndScalarDotProductsAgree() {
+        assertInstanceOf(VectorizedDotProduct.class, PrototypeMatrix.DOT_PRODUCT);
+        PrototypeMatrix.DotProduct vectorized = new VectorizedDotProduct();
+        PrototypeMatrix.DotProduct scalar = new PrototypeMatrix.ScalarDotProduct();
+        Random random = new Random(3);
+        // lengths around every species length (4 to 16 floats) and typical embedding sizes
+        for (int length : new int[]{0, 1, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 384, 769}) {
+            float[] a = randomVector(random, length + 5);
+            float[] b = randomVector(random, length);
+            double expected = 0;
+            for (int i = 0; i < length; i++) {
+                expected += (double) a[5 + i] * b[i];
+            }
+            assertEquals(expected, vectorized.dot(a, 5, b, length), 1e-4, "length " + length);
+            assertEquals(expected, scalar.dot(a, 5, b, length), 1e-4, "length " + length);
+        }
+    }
+
+    @Test
+    void nearestPicksTheCategoryOfTheClosestPrototype() {
+        PrototypeMatrix matrix = PrototypeMatrix.of(
+                List.of(Category.FOOD, Category.FOOD, Category.TRANSPORT),
+                List.of(new float[]{1, 0, 0}, new float[]{0, 3, 0}, new float[]{0, 0, 2}));
+
+        assertEquals(3, matrix.rows());
+        assertEquals(Category.FOOD, matrix.nearest(new float[]{0.1f, 1, 0.2f}));
+        assertEquals(Category.FOOD, matrix.nearest(new float[]{5, 0, 1}));
+        assertEquals(Category.TRANSPORT, matrix.nearest(new float[]{0.3f, 0.3f, 1}));
+    }
+
+    @Test
+    void zeroVectorsAreSkipped() {
+        PrototypeMatrix matrix = PrototypeMatrix.of(
+                List.of(Category.FOOD, Category.SHOPPING, Category.TRANSPORT),
+                List.of(new float[]{1, 0}, new float[]{0, 0}, new float[]{0, 1}));
+
+        assertEquals(2, matrix.rows());
+        // every kept prototype scores below zero, which a zero vector would have beaten
+        assertEquals(Category.FOOD, matrix.nearest(new float[]{-1, -2}));
+    }
+
+    @Test
+    void emptyMatrixHasNoNearestCategory() {
+        assertNull(PrototypeMatrix.of(List.of(), List.of()).nearest(new float[0]));
+        assertNull(PrototypeMatrix.of(List.of(Category.FOOD), List.of(new float[]{0, 0})).nearest(new float[]{1, 1}));
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
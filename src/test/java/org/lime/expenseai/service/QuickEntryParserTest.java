@@ -0,0 +1,66 @@
+package org.lime.expenseai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuickEntryParserTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 10);
+
+    @Test
+    void parsesFormulaicEntries() {
+        QuickEntryParser.QuickEntry entry = parse("In July 25th, 2025, I bought a coffee, cost 6.66 euros").orElseThrow();
+        assertEquals(LocalDate.of(2025, 7, 25), entry.date());
+        assertEquals(6.66, entry.amount(), 1e-9);
+        assertEquals("EUR", entry.currency());
+        assertEquals("coffee", entry.description());
+        assertNull(entry.category());
+
+        entry = parse("2025-07-01 groceries \u20ac45,30").orElseThrow();
+        assertEquals(45.30, entry.amount(), 1e-9);
+        assertEquals("GROCERIES", entry.category());
+
+        entry = parse("dinner for two 40 euros last friday").orElseThrow();
+        assertEquals(LocalDate.of(2025, 8, 8), entry.date());
+        assertEquals("dinner for two", entry.description());
+    }
+
+    @Test
+    void resolvesRelativeDatesAndMissingYears() {
+        assertEquals(TODAY.minusDays(1), parse("yesterday, taxi 12.40 EUR").orElseThrow().date());
+        assertEquals(TODAY.minusDays(3), parse("3 days ago train ticket 23.5 usd").orElseThrow().date());
+        // August 12th has not happened yet this year
+        assertEquals(LocalDate.of(2024, 8, 12), parse("aug 12 cinema 9 eur").orElseThrow().date());
+    }
+
+    @Test
+    void digitsInsideWordsAreNotAmounts() {
+        QuickEntryParser.QuickEntry entry = parse("yesterday A4 paper 5 eur").orElseThrow();
+        assertEquals(5, entry.amount(), 1e-9);
+        assertEquals("A4 paper", entry.description());
+
+        entry = parse("yesterday coffee-2 refill cost 3 eur").orElseThrow();
+        assertEquals(3, entry.amount(), 1e-9);
+    }
+
+    @Test
+    void leavesAnythingAmbiguousToTheModel() {
+        assertTrue(parse("coffee 3 euros").isEmpty());                       // no date
+        assertTrue(parse("how much did I spend yesterday?").isEmpty());      // question
+        assertTrue(parse("delete the coffee from yesterday 3 euros").isEmpty());
+        assertTrue(parse("yesterday coffee 3 euros and bread 2 euros").isEmpty());
+        assertTrue(parse("February 30th taxi 5 eur").isEmpty());             // invalid date
+        assertTrue(parse("1,234.50 eur laptop today").isEmpty());            // thousands separator
+        assertTrue(parse("yesterday bus 3").isEmpty());                      // number without currency or price word
+    }
+
+    private static Optional<QuickEntryParser.QuickEntry> parse(String message) {
+        return QuickEntryParser.parse(message, TODAY);
+    }
+}
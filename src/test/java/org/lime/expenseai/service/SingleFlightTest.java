@@ -0,0 +1,115 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flight = new SingleFlight<>(meterRegistry, "test");
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> flight.execute("key", () -> "duplicate")));
+            }
+            while (collapsed() < 7) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, calls.get());
+        // nothing is retained once the call has completed
+        assertEquals("next", flight.execute("key", () -> "next"));
+    }
+
+    @Test
+    void waitersGetTheFirstCallersException() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LlmBusyException failure = new LlmBusyException(false, "busy");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> flight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<LlmBusyException> waiter = executor.submit(
+                    () -> assertThrows(LlmBusyException.class, () -> flight.execute("key", () -> "unused")));
+            while (collapsed() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertSame(failure, waiter.get(5, TimeUnit.SECONDS));
+            assertSame(failure, assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        }
+    }
+
+    @Test
+    void concurrentStreamsShareOneCallAndReplayItsChunks() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.Many<String> model = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+
+        flight.executeStream("key", () -> {
+            calls.incrementAndGet();
+            return model.asFlux();
+        }).subscribe(first::add);
+        model.tryEmitNext("Food ");
+        flight.executeStream("key", () -> Flux.just("duplicate")).subscribe(second::add);
+        model.tryEmitNext("is up.");
+        model.tryEmitComplete();
+
+        assertEquals(List.of("Food ", "is up."), first);
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, collapsed());
+        // nothing is retained once the stream has completed
+        assertEquals(List.of("next"), flight.executeStream("key", () -> Flux.just("next")).collectList().block());
+    }
+
+    private double collapsed() {
+        return meterRegistry.get("singleflight.calls").tag("result", "collapsed").functionCounter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.lime.expenseai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> flushes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstFlushStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+
+    private final WriteBatcher<String, String> batcher = new WriteBatcher<>("test", 100, Duration.ZERO, batch -> {
+        flushes.add(batch);
+        if (flushes.size() == 1) {
+            firstFlushStarted.countDown();
+            await(releaseFirstFlush);
+        }
+        if (batch.contains("bad")) {
+            throw new IllegalArgumentException("bad item");
+        }
+        return batch.stream().map(item -> item.toUpperCase(Locale.ROOT)).toList();
+    }, meterRegistry);
+
+    @AfterEach
+    void close() {
+        releaseFirstFlush.countDown();
+        batcher.close();
+    }
+
+    @Test
+    void callsQueuedDuringAFlushAreWrittenTogether() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> batcher.submit("first"));
+            assertTrue(firstFlushStarted.await(5, TimeUnit.SECONDS));
+            List<Future<String>> queued = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String item = "item" + i;
+                queued.add(executor.submit(() -> batcher.submit(item)));
+            }
+            awaitQueued(10);
+            releaseFirstFlush.countDown();
+
+            assertEquals("FIRST", first.get(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; i++) {
+                assertEquals("ITEM" + i, queued.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(List.of("first"), flushes.get(0));
+        assertEquals(10, flushes.get(1).size());
+        assertEquals(2, flushes.size());
+    }
+
+    @Test
+    void onlyTheFailingItemOfABatchGetsTheException() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> batcher.submit("first"));
+            assertTrue(firstFlushStarted.await(5, TimeUnit.SECONDS));
+            Future<String> good = executor.submit(() -> batcher.submit("good"));
+            Future<String> bad = executor.submit(() -> batcher.submit("bad"));
+            awaitQueued(2);
+            releaseFirstFlush.countDown();
+
+            assertEquals("FIRST", first.get(5, TimeUnit.SECONDS));
+            assertEquals("GOOD", good.get(5, TimeUnit.SECONDS));
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        }
+        assertEquals(1.0, meterRegistry.get("writebatch.retries").functionCounter().count());
+    }
+
+    @Test
+    void submitAfterCloseFlushesOnTheCallersThread() {
+        releaseFirstFlush.countDown();
+        batcher.close();
+        assertEquals("LATE", batcher.submit("late"));
+        assertEquals(List.of(List.of("late")), flushes);
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batcher.queued() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+-- Stand-in read replica for ReadReplicaRoutingTest: same table, different rows, no replication
+create table if not exists expense (
+    id bigint not null primary key,
+    amount float(53) not null,
+    category varchar(255),
+    date date,
+    description varchar(255),
+    category_source varchar(16)
+);
+merge into expense (id, amount, category, date, description) key (id)
+    values (1000, 12.5, 'FOOD', date '2025-06-20', 'replica row');
+
+create table if not exists monthly_category_rollup (
+    id            bigint generated by default as identity,
+    category      varchar(255) not null,
+    expense_count bigint       not null,
+    max_amount    float(53)    not null,
+    rollup_month  varchar(7)   not null,
+    total         float(53)    not null,
+    primary key (id),
+    unique (rollup_month, category)
+);